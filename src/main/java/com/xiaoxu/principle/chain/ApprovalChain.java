@@ -0,0 +1,44 @@
+package com.xiaoxu.principle.chain;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 可以在运行时替换配置的职责链
+ * <p>
+ * 每次处理请求时只读取一次当前的快照，替换配置不影响正在处理的请求，之后的请求使用新的职责链；读取不加锁
+ */
+public class ApprovalChain {
+    private final AtomicReference<ChainSnapshot> current;
+
+    public ApprovalChain(ChainConfig config) {
+        this.current = new AtomicReference<>(new ChainSnapshot(1, config));
+    }
+
+    public ChainSnapshot current() {
+        return current.get();
+    }
+
+    // 新的职责链在替换之前就已经创建好，返回被替换的快照
+    public ChainSnapshot reconfigure(ChainConfig config) {
+        while (true) {
+            ChainSnapshot old = current.get();
+            ChainSnapshot next = new ChainSnapshot(old.version + 1, config);
+            if (current.compareAndSet(old, next)) {
+                return old;
+            }
+        }
+    }
+
+    public void handle(Request request) {
+        current.get().handle(request);
+    }
+
+    public Handler route(Request request) {
+        return current.get().route(request);
+    }
+
+    public List<ApprovalResult> approveAll(List<Request> requests) {
+        return current.get().approveAll(requests);
+    }
+}
@@ -0,0 +1,25 @@
+package com.xiaoxu.principle.chain;
+
+// 一个请求的审批结果
+public class ApprovalResult {
+    public final Request request;
+    // 没有领导可以审批时为null
+    public final Handler approver;
+
+    public ApprovalResult(Request request, Handler approver) {
+        this.request = request;
+        this.approver = approver;
+    }
+
+    public boolean isApproved() {
+        return approver != null;
+    }
+
+    @Override
+    public String toString() {
+        if (approver == null) {
+            return request + "没有领导可以审批";
+        }
+        return request + "由" + approver.getName() + "审批";
+    }
+}
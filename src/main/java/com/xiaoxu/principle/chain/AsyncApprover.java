@@ -0,0 +1,17 @@
+package com.xiaoxu.principle.chain;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiPredicate;
+
+// 异步审批，结果为true表示同意，false表示交给下一个领导
+@FunctionalInterface
+public interface AsyncApprover {
+    CompletionStage<Boolean> review(Handler handler, Request request);
+
+    // 把阻塞的审批调用放到executor中执行
+    static AsyncApprover blocking(BiPredicate<Handler, Request> call, Executor executor) {
+        return (handler, request) -> CompletableFuture.supplyAsync(() -> call.test(handler, request), executor);
+    }
+}
@@ -0,0 +1,55 @@
+package com.xiaoxu.principle.chain;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 异步的职责链，审批中的请求不占用线程
+ * <p>
+ * 请求交给第一个canApprove的处理者后由approver异步审批，不同意、出错或者超过每一级的超时时间时
+ * 交给下一个领导，一直到最后一个领导也没有同意时以IllegalStateException结束
+ */
+public class AsyncChain {
+    private final Handler head;
+    private final AsyncApprover approver;
+    private final long timeoutNanos;
+
+    public AsyncChain(Handler head, AsyncApprover approver, long timeout, TimeUnit unit) {
+        this.head = head;
+        this.approver = approver;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public CompletableFuture<ApprovalResult> handle(Request request) {
+        return hop(head, request, null);
+    }
+
+    private CompletableFuture<ApprovalResult> hop(Handler handler, Request request, Throwable lastFailure) {
+        // 金额超出上限的处理者直接跳过，不需要异步调用
+        while (handler != null && !handler.canApprove(request)) {
+            handler = handler.getNext();
+        }
+        if (handler == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("没有领导可以审批：" + request, lastFailure));
+        }
+        Handler current = handler;
+        CompletableFuture<Boolean> review;
+        try {
+            // copy之后超时只影响这里，不会让approver返回的future异常结束
+            review = approver.review(current, request).toCompletableFuture().copy();
+        } catch (RuntimeException e) {
+            return hop(current.getNext(), request, e);
+        }
+        return review
+                .orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .handle((approved, failure) -> {
+                    if (failure == null && Boolean.TRUE.equals(approved)) {
+                        return CompletableFuture.completedFuture(new ApprovalResult(request, current));
+                    }
+                    return hop(current.getNext(), request, failure instanceof CompletionException ? failure.getCause() : failure);
+                })
+                .thenCompose(Function.identity());
+    }
+}
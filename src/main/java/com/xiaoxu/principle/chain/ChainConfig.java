@@ -0,0 +1,67 @@
+package com.xiaoxu.principle.chain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 职责链的配置：处理者的类型、顺序和审批上限
+ * <p>
+ * 文本格式是按顺序用逗号分隔的"类型:上限"，省略上限时使用默认值，例如：
+ * 主任:3000,书记:5000,院长:7000,副校长:9000,校长
+ */
+public class ChainConfig {
+    public final List<HandlerType> types;
+    // 元素为null表示使用默认的上限
+    public final List<Integer> limits;
+
+    public ChainConfig(List<HandlerType> types, List<Integer> limits) {
+        if (types.isEmpty() || types.size() != limits.size()) {
+            throw new IllegalArgumentException("职责链至少需要一个处理者，并且每个处理者对应一个上限");
+        }
+        this.types = Collections.unmodifiableList(new ArrayList<>(types));
+        this.limits = Collections.unmodifiableList(new ArrayList<>(limits));
+    }
+
+    public static ChainConfig parse(String text) {
+        List<HandlerType> types = new ArrayList<>();
+        List<Integer> limits = new ArrayList<>();
+        for (String item : text.split(",")) {
+            String[] parts = item.trim().split(":");
+            if (parts.length > 2 || parts[0].isEmpty()) {
+                throw new IllegalArgumentException("配置格式错误：" + item);
+            }
+            types.add(HandlerType.of(parts[0].trim()));
+            try {
+                limits.add(parts.length == 2 ? Integer.valueOf(parts[1].trim()) : null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("审批上限不是整数：" + item, e);
+            }
+        }
+        return new ChainConfig(types, limits);
+    }
+
+    // 从后往前创建，每个处理者创建时就确定了下一个处理者
+    public Handler build() {
+        Handler next = null;
+        for (int i = types.size() - 1; i >= 0; i--) {
+            next = types.get(i).create(limits.get(i), next);
+        }
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < types.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(types.get(i).getName());
+            if (limits.get(i) != null) {
+                builder.append(':').append(limits.get(i));
+            }
+        }
+        return builder.toString();
+    }
+}
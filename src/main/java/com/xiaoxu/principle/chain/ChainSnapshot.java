@@ -0,0 +1,35 @@
+package com.xiaoxu.principle.chain;
+
+import java.util.List;
+
+// 某个版本的职责链，创建之后不再修改，可以被多个线程同时使用
+public class ChainSnapshot {
+    public final long version;
+    public final ChainConfig config;
+    public final Handler head;
+    public final RoutingTable table;
+
+    public ChainSnapshot(long version, ChainConfig config) {
+        this.version = version;
+        this.config = config;
+        this.head = config.build();
+        this.table = RoutingTable.compile(head);
+    }
+
+    public void handle(Request request) {
+        table.handle(request);
+    }
+
+    public Handler route(Request request) {
+        return table.route(request);
+    }
+
+    public List<ApprovalResult> approveAll(List<Request> requests) {
+        return table.approveAll(requests);
+    }
+
+    @Override
+    public String toString() {
+        return "ChainSnapshot{version=" + version + ", config=" + config + '}';
+    }
+}
@@ -2,17 +2,18 @@ package com.xiaoxu.principle.chain;
 
 // 院长审批
 public class DeanHandler extends Handler {
+    public static final int DEFAULT_LIMIT = 7000;
+
     public DeanHandler(Handler next) {
-        super(next);
+        this(DEFAULT_LIMIT, next);
+    }
+
+    public DeanHandler(int limit, Handler next) {
+        super(limit, next);
     }
 
     @Override
-    public void handle(Request request) {
-        if (request.price <= 7000) {
-            System.out.println("由院长审批");
-            return;
-        }
-        System.out.print("院长交给下一个领导审批->");
-        next.handle(request);
+    public String getName() {
+        return "院长";
     }
 }
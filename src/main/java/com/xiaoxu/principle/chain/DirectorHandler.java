@@ -2,17 +2,18 @@ package com.xiaoxu.principle.chain;
 
 // 主任审批
 public class DirectorHandler extends Handler {
+    public static final int DEFAULT_LIMIT = 3000;
+
     public DirectorHandler(Handler next) {
-        super(next);
+        this(DEFAULT_LIMIT, next);
+    }
+
+    public DirectorHandler(int limit, Handler next) {
+        super(limit, next);
     }
 
     @Override
-    public void handle(Request request) {
-        if (request.price <= 3000) {
-            System.out.println("由主任审批");
-            return;
-        }
-        System.out.print("主任交给下一个领导审批->");
-        next.handle(request);
+    public String getName() {
+        return "主任";
     }
 }
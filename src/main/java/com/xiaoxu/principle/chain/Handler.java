@@ -1,11 +1,62 @@
 package com.xiaoxu.principle.chain;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class Handler {
-    protected Handler next;
+    // 没有声明审批金额上限，只能通过canApprove判断
+    public static final int UNKNOWN_LIMIT = Integer.MIN_VALUE;
 
-    public abstract void handle(Request request);
+    protected final Handler next;
+    private final int limit;
 
     public Handler(Handler next) {
+        this(UNKNOWN_LIMIT, next);
+    }
+
+    public Handler(int limit, Handler next) {
+        this.limit = limit;
         this.next = next;
     }
+
+    public void handle(Request request) {
+        if (canApprove(request)) {
+            approve(request);
+            return;
+        }
+        if (next == null) {
+            throw new IllegalStateException("没有领导可以审批：" + request);
+        }
+        System.out.print(getName() + "交给下一个领导审批->");
+        next.handle(request);
+    }
+
+    // 金额不超过上限时可以审批；按其他条件审批的处理者重写这个方法，getLimit保持UNKNOWN_LIMIT
+    public boolean canApprove(Request request) {
+        return request.price <= getLimit();
+    }
+
+    public void approve(Request request) {
+        System.out.println("由" + getName() + "审批");
+    }
+
+    // 批量审批已经确定由自己审批的请求，不输出到控制台
+    public List<ApprovalResult> approveAll(List<Request> requests) {
+        List<ApprovalResult> results = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            results.add(new ApprovalResult(request, this));
+        }
+        return results;
+    }
+
+    // 能审批的最高金额，RoutingTable根据它把职责链编译成查找表
+    public int getLimit() {
+        return limit;
+    }
+
+    public abstract String getName();
+
+    public Handler getNext() {
+        return next;
+    }
 }
@@ -0,0 +1,46 @@
+package com.xiaoxu.principle.chain;
+
+// 配置中可以使用的处理者，配置里写中文名或者枚举名都可以
+public enum HandlerType {
+    DIRECTOR("主任"), SECRETARY("书记"), DEAN("院长"), VICE_PRINCIPAL("副校长"), PRINCIPAL("校长");
+
+    private final String name;
+
+    HandlerType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // limit为null时使用默认的上限
+    public Handler create(Integer limit, Handler next) {
+        switch (this) {
+            case DIRECTOR:
+                return new DirectorHandler(limit == null ? DirectorHandler.DEFAULT_LIMIT : limit, next);
+            case SECRETARY:
+                return new SecretaryHandler(limit == null ? SecretaryHandler.DEFAULT_LIMIT : limit, next);
+            case DEAN:
+                return new DeanHandler(limit == null ? DeanHandler.DEFAULT_LIMIT : limit, next);
+            case VICE_PRINCIPAL:
+                return new VicePrincipalHandler(limit == null ? VicePrincipalHandler.DEFAULT_LIMIT : limit, next);
+            case PRINCIPAL:
+                if (limit != null) {
+                    throw new IllegalArgumentException("校长没有审批上限");
+                }
+                return new PrincipalHandler(next);
+            default:
+                throw new IllegalArgumentException("不支持的处理者：" + this);
+        }
+    }
+
+    public static HandlerType of(String name) {
+        for (HandlerType type : values()) {
+            if (type.name.equals(name) || type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的处理者：" + name);
+    }
+}
@@ -1,5 +1,10 @@
 package com.xiaoxu.principle.chain;
 
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 // 职责链模式
 public class Main {
     public static void main(String[] args) {
@@ -7,5 +12,34 @@ public class Main {
 
         Handler handler = new DirectorHandler(new SecretaryHandler(new DeanHandler(new VicePrincipalHandler(new PrincipalHandler(null)))));
         handler.handle(request);
+
+        // 编译成查找表之后直接找到审批的领导
+        RoutingTable table = RoutingTable.compile(handler);
+        table.handle(request);
+
+        // 批量审批
+        table.approveAll(Arrays.asList(new Request("电脑", 4999), new Request("投影仪", 8000), new Request("实验室", 100000)), true);
+
+        // 从配置创建职责链，运行时可以替换
+        ApprovalChain chain = new ApprovalChain(ChainConfig.parse("主任:3000,书记:5000,院长:7000,副校长:9000,校长"));
+        chain.handle(request);
+        chain.reconfigure(ChainConfig.parse("主任:5000,院长:10000,校长"));
+        chain.handle(request);
+
+        // 异步审批，院长超过100毫秒没有回复时交给副校长
+        ExecutorService executor = Executors.newCachedThreadPool();
+        AsyncApprover approver = AsyncApprover.blocking((approving, r) -> {
+            if (approving instanceof DeanHandler) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return true;
+        }, executor);
+        AsyncChain asyncChain = new AsyncChain(handler, approver, 100, TimeUnit.MILLISECONDS);
+        System.out.println(asyncChain.handle(new Request("服务器", 6000)).join());
+        executor.shutdownNow();
     }
 }
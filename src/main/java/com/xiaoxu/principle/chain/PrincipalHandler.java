@@ -2,12 +2,18 @@ package com.xiaoxu.principle.chain;
 
 // 校长审批
 public class PrincipalHandler extends Handler {
+    // 校长可以审批任何金额
     public PrincipalHandler(Handler next) {
-        super(next);
+        super(Integer.MAX_VALUE, next);
     }
 
     @Override
-    public void handle(Request request) {
+    public void approve(Request request) {
         System.out.println("校长审批");
     }
+
+    @Override
+    public String getName() {
+        return "校长";
+    }
 }
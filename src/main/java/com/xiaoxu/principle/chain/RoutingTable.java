@@ -0,0 +1,156 @@
+package com.xiaoxu.principle.chain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 把职责链编译成按金额上限排序的数组，用二分查找直接找到审批的处理者，不需要一级一级地调用
+ * <p>
+ * 请求交给第一个上限不小于金额的处理者，所以只有上限比前面所有处理者都高的处理者才会审批，其他的可以跳过；
+ * 遇到没有声明上限的处理者时编译停止，超出数组范围的请求从它开始沿着职责链逐个判断
+ */
+public class RoutingTable {
+    private final int[] limits;
+    private final Handler[] handlers;
+    // 第一个没有声明上限的处理者，没有时为null
+    private final Handler fallback;
+
+    private RoutingTable(int[] limits, Handler[] handlers, Handler fallback) {
+        this.limits = limits;
+        this.handlers = handlers;
+        this.fallback = fallback;
+    }
+
+    public static RoutingTable compile(Handler head) {
+        List<Handler> handlers = new ArrayList<>();
+        long max = Long.MIN_VALUE;
+        Handler current = head;
+        while (current != null && current.getLimit() != Handler.UNKNOWN_LIMIT) {
+            // 上限不超过前面的处理者的永远收不到请求
+            if (current.getLimit() > max) {
+                max = current.getLimit();
+                handlers.add(current);
+            }
+            if (max == Integer.MAX_VALUE) {
+                current = null;
+                break;
+            }
+            current = current.getNext();
+        }
+        int[] limits = new int[handlers.size()];
+        for (int i = 0; i < limits.length; i++) {
+            limits[i] = handlers.get(i).getLimit();
+        }
+        return new RoutingTable(limits, handlers.toArray(new Handler[0]), current);
+    }
+
+    // 返回审批这个请求的处理者
+    public Handler route(Request request) {
+        Handler handler = find(request);
+        if (handler == null) {
+            throw new IllegalStateException("没有领导可以审批：" + request);
+        }
+        return handler;
+    }
+
+    // 没有处理者可以审批时返回null
+    private Handler find(Request request) {
+        int index = Arrays.binarySearch(limits, request.price);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (index < limits.length) {
+            return handlers[index];
+        }
+        for (Handler handler = fallback; handler != null; handler = handler.getNext()) {
+            if (handler.canApprove(request)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    // 直接交给审批的处理者，不输出中间的转交过程
+    public void handle(Request request) {
+        route(request).approve(request);
+    }
+
+    /**
+     * 批量审批，先并行地找出每个请求的审批者，再按审批者分组，
+     * 每个审批者一次拿到自己的全部请求，不同审批者的分组并行处理
+     * <p>
+     * 结果和requests的顺序一致；没有领导可以审批的请求不会中断整批审批，结果中approver为null
+     */
+    public List<ApprovalResult> approveAll(List<Request> requests) {
+        int size = requests.size();
+        Handler[] approvers = new Handler[size];
+        IntStream.range(0, size).parallel().forEach(i -> approvers[i] = find(requests.get(i)));
+        ApprovalResult[] results = new ApprovalResult[size];
+
+        // 审批者的数量很少，给每个审批者编号后用计数排序分组，order中同一个审批者的请求下标是连续的
+        IdentityHashMap<Handler, Integer> ids = new IdentityHashMap<>();
+        int[] partition = new int[size];
+        int routed = 0;
+        for (int i = 0; i < size; i++) {
+            if (approvers[i] == null) {
+                partition[i] = -1;
+                results[i] = new ApprovalResult(requests.get(i), null);
+                continue;
+            }
+            routed++;
+            Integer id = ids.get(approvers[i]);
+            if (id == null) {
+                id = ids.size();
+                ids.put(approvers[i], id);
+            }
+            partition[i] = id;
+        }
+        int partitions = ids.size();
+        int[] starts = new int[partitions + 1];
+        for (int i = 0; i < size; i++) {
+            if (partition[i] >= 0) {
+                starts[partition[i] + 1]++;
+            }
+        }
+        for (int p = 1; p <= partitions; p++) {
+            starts[p] += starts[p - 1];
+        }
+        int[] order = new int[routed];
+        int[] fill = Arrays.copyOf(starts, partitions);
+        for (int i = 0; i < size; i++) {
+            if (partition[i] >= 0) {
+                order[fill[partition[i]]++] = i;
+            }
+        }
+
+        IntStream.range(0, partitions).parallel().forEach(p -> {
+            int from = starts[p], to = starts[p + 1];
+            List<Request> slice = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                slice.add(requests.get(order[i]));
+            }
+            List<ApprovalResult> approved = approvers[order[from]].approveAll(slice);
+            for (int i = from; i < to; i++) {
+                results[order[i]] = approved.get(i - from);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    // print为true时按顺序输出每个请求的审批结果
+    public List<ApprovalResult> approveAll(List<Request> requests, boolean print) {
+        List<ApprovalResult> results = approveAll(requests);
+        if (print) {
+            results.forEach(System.out::println);
+        }
+        return results;
+    }
+
+    // 编译成数组的处理者个数
+    public int size() {
+        return limits.length;
+    }
+}
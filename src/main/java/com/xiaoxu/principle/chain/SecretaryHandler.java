@@ -2,17 +2,18 @@ package com.xiaoxu.principle.chain;
 
 // 书记审批
 public class SecretaryHandler extends Handler {
+    public static final int DEFAULT_LIMIT = 5000;
+
     public SecretaryHandler(Handler next) {
-        super(next);
+        this(DEFAULT_LIMIT, next);
+    }
+
+    public SecretaryHandler(int limit, Handler next) {
+        super(limit, next);
     }
 
     @Override
-    public void handle(Request request) {
-        if (request.price <= 5000) {
-            System.out.println("由书记审批");
-            return;
-        }
-        System.out.print("书记交给下一个领导审批->");
-        next.handle(request);
+    public String getName() {
+        return "书记";
     }
 }
@@ -0,0 +1,66 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 每个棋子一个对象与BoardStore紧凑存储的内存占用对比
+public class BoardMemoryBenchmark {
+    private static final int PIECES = 1_000_000;
+
+    // 每个棋子一个对象，外部状态放在对象的字段中
+    static class PlacedChess {
+        final Chess chess;
+        final int x, y, owner;
+
+        PlacedChess(Chess chess, int x, int y, int owner) {
+            this.chess = chess;
+            this.x = x;
+            this.y = y;
+            this.owner = owner;
+        }
+    }
+
+    public static void main(String[] args) {
+        Factory factory = new Factory();
+        Chess black = factory.getChess("黑棋");
+        Chess white = factory.getChess("白棋");
+
+        long before = usedMemory();
+        List<PlacedChess> objects = new ArrayList<>(PIECES);
+        for (int i = 0; i < PIECES; i++) {
+            objects.add(new PlacedChess(i % 2 == 0 ? black : white, i % 19, i / 19 % 19, i % 2));
+        }
+        long objectBytes = usedMemory() - before;
+        System.out.println("每个棋子一个对象：" + objectBytes / PIECES + " 字节/棋子");
+        objects = null;
+
+        before = usedMemory();
+        BoardStore heap = new BoardStore(PIECES, false);
+        for (int i = 0; i < PIECES; i++) {
+            heap.add(i % 2 == 0 ? black : white, i % 19, i / 19 % 19, i % 2);
+        }
+        long heapBytes = usedMemory() - before;
+        System.out.println("BoardStore（堆内）：" + heapBytes / (double) PIECES + " 字节/棋子");
+
+        BoardStore offHeap = new BoardStore(PIECES, true);
+        for (int i = 0; i < PIECES; i++) {
+            offHeap.add(i % 2 == 0 ? black : white, i % 19, i / 19 % 19, i % 2);
+        }
+        System.out.println("BoardStore（堆外）：" + offHeap.footprint() / (double) PIECES + " 字节/棋子");
+
+        long start = System.nanoTime();
+        long[] sum = new long[1];
+        offHeap.forEach((index, chess, x, y, owner) -> sum[0] += x + y + owner);
+        System.out.println("遍历" + PIECES + "个棋子：" + (System.nanoTime() - start) / 1_000_000 + " ms，校验和" + sum[0]);
+        // 保证比较期间对象不会被回收
+        System.out.println(heap.size() + offHeap.size());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,130 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+
+/**
+ * 棋盘上已经放置的棋子，外部状态按固定长度紧凑地存放在ByteBuffer中，
+ * 每个棋子只存一个字节的下标指向共享的Chess享元对象
+ * <p>
+ * 每个棋子6个字节：x、y各2个字节，享元下标1个字节，玩家1个字节
+ */
+public class BoardStore {
+    private static final int X = 0, Y = 2, TYPE = 4, OWNER = 5, RECORD = 6;
+    // 一个字节的下标最多区分256种享元
+    private static final int MAX_TYPES = 256;
+    // 一个ByteBuffer最多放下的字节数，取RECORD的整数倍
+    private static final int MAX_BYTES = Integer.MAX_VALUE - Integer.MAX_VALUE % RECORD;
+    public static final int MAX_PIECES = MAX_BYTES / RECORD;
+
+    private final boolean direct;
+    private ByteBuffer buffer;
+    private int size;
+    private final Chess[] types = new Chess[MAX_TYPES];
+    private final IdentityHashMap<Chess, Integer> typeIndex = new IdentityHashMap<>();
+
+    // direct为true时使用堆外内存
+    public BoardStore(int capacity, boolean direct) {
+        if (capacity > MAX_PIECES) {
+            throw new IllegalArgumentException("容量超过上限" + MAX_PIECES + "：" + capacity);
+        }
+        this.direct = direct;
+        this.buffer = allocate(Math.max(capacity, 16) * RECORD);
+    }
+
+    // 返回棋子的编号，坐标范围是short，玩家范围是0到255
+    public int add(Chess chess, int x, int y, int owner) {
+        if (x != (short) x || y != (short) y) {
+            throw new IllegalArgumentException("坐标超出范围：(" + x + ", " + y + ")");
+        }
+        if (owner < 0 || owner > 255) {
+            throw new IllegalArgumentException("玩家编号超出范围：" + owner);
+        }
+        int type = typeOf(chess);
+        if (size == buffer.capacity() / RECORD) {
+            grow();
+        }
+        int offset = size * RECORD;
+        buffer.putShort(offset + X, (short) x);
+        buffer.putShort(offset + Y, (short) y);
+        buffer.put(offset + TYPE, (byte) type);
+        buffer.put(offset + OWNER, (byte) owner);
+        return size++;
+    }
+
+    public Chess chess(int index) {
+        return types[buffer.get(check(index) * RECORD + TYPE) & 0xff];
+    }
+
+    public int x(int index) {
+        return buffer.getShort(check(index) * RECORD + X);
+    }
+
+    public int y(int index) {
+        return buffer.getShort(check(index) * RECORD + Y);
+    }
+
+    public int owner(int index) {
+        return buffer.get(check(index) * RECORD + OWNER) & 0xff;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 存放棋子占用的字节数
+    public long footprint() {
+        return (long) buffer.capacity();
+    }
+
+    // 按放置顺序遍历所有棋子，不为每个棋子创建对象
+    public void forEach(PieceVisitor visitor) {
+        ByteBuffer buffer = this.buffer;
+        for (int i = 0, offset = 0; i < size; i++, offset += RECORD) {
+            visitor.visit(i, types[buffer.get(offset + TYPE) & 0xff],
+                    buffer.getShort(offset + X), buffer.getShort(offset + Y), buffer.get(offset + OWNER) & 0xff);
+        }
+    }
+
+    public interface PieceVisitor {
+        void visit(int index, Chess chess, int x, int y, int owner);
+    }
+
+    private int typeOf(Chess chess) {
+        Integer type = typeIndex.get(chess);
+        if (type != null) {
+            return type;
+        }
+        if (typeIndex.size() == MAX_TYPES) {
+            throw new IllegalStateException("享元种类超过" + MAX_TYPES);
+        }
+        type = typeIndex.size();
+        types[type] = chess;
+        typeIndex.put(chess, type);
+        return type;
+    }
+
+    private int check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("棋子编号" + index + "，共" + size + "个");
+        }
+        return index;
+    }
+
+    // 按long计算新的容量，超过int范围之前停在MAX_BYTES
+    private void grow() {
+        if (buffer.capacity() >= MAX_BYTES) {
+            throw new IllegalStateException("棋子个数已经达到上限" + MAX_PIECES);
+        }
+        ByteBuffer larger = allocate((int) Math.min((long) buffer.capacity() * 2, MAX_BYTES));
+        buffer.position(0).limit(size * RECORD);
+        larger.put(buffer);
+        buffer.clear();
+        larger.clear();
+        buffer = larger;
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        return direct ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+}
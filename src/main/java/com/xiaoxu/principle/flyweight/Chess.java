@@ -2,4 +2,7 @@ package com.xiaoxu.principle.flyweight;
 
 public abstract class Chess {
     public abstract void use();
+
+    // 坐标和所属玩家是外部状态，由调用方传入，不保存在享元对象中
+    public abstract void use(int x, int y, int owner);
 }
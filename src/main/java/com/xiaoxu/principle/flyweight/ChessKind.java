@@ -0,0 +1,35 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.HashMap;
+
+// 编译期就确定的棋子种类，用ordinal作为享元表的下标
+public enum ChessKind {
+    BLACK("黑棋"), WHITE("白棋");
+
+    private static final HashMap<String, ChessKind> NAMES = new HashMap<>();
+
+    static {
+        for (ChessKind kind : values()) {
+            NAMES.put(kind.name, kind);
+        }
+    }
+
+    private final String name;
+
+    ChessKind(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // 外部传入的名字只在这里查一次表，之后都使用枚举
+    public static ChessKind of(String name) {
+        ChessKind kind = NAMES.get(name);
+        if (kind == null) {
+            throw new IllegalArgumentException("未知的棋子：" + name);
+        }
+        return kind;
+    }
+}
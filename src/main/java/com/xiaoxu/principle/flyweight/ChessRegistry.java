@@ -0,0 +1,25 @@
+package com.xiaoxu.principle.flyweight;
+
+/**
+ * 种类固定的享元注册表，创建时就把所有种类的实例放进按ordinal排列的数组，
+ * 获取实例只需要一次数组读取
+ */
+public class ChessRegistry {
+    private final Chess[] table;
+
+    public ChessRegistry() {
+        ChessKind[] kinds = ChessKind.values();
+        table = new Chess[kinds.length];
+        for (ChessKind kind : kinds) {
+            table[kind.ordinal()] = new WhiteAndBlackChess(kind.getName());
+        }
+    }
+
+    public Chess getChess(ChessKind kind) {
+        return table[kind.ordinal()];
+    }
+
+    public Chess getChess(String name) {
+        return getChess(ChessKind.of(name));
+    }
+}
@@ -1,17 +1,79 @@
 package com.xiaoxu.principle.flyweight;
 
-import java.util.HashMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.function.Function;
 
 public class Factory {
-    private HashMap<String, WhiteAndBlackChess> map = new HashMap<>();
+    private FlyweightPool<String, Chess> pool;
+    private final FactoryMetrics metrics;
+    // 提前创建好，避免每次获取实例都创建一个捕获this的lambda
+    private final Function<String, Chess> creator = key -> create(key, true);
+    private final Function<String, Chess> prewarmCreator = key -> create(key, false);
+
+    // 默认一直保留创建过的实例
+    public Factory() {
+        this(new StrongPool<>());
+    }
+
+    public Factory(Retention retention, int maximumSize) {
+        this(FlyweightPool.of(retention, maximumSize));
+    }
+
+    public Factory(FlyweightPool<String, Chess> pool) {
+        this.pool = pool;
+        this.metrics = new FactoryMetrics(pool::size);
+    }
 
     public Chess getChess(String name) {
-        if (map.containsKey(name)) {
-            return map.get(name);
+        metrics.recordCall();
+        // 池保证同一时刻同一个key只创建一个实例
+        return pool.get(name, creator);
+    }
+
+    // 启动时提前并行创建已知的实例，避免第一次请求时才创建，返回当前的实例数
+    public int prewarm(Collection<String> names) {
+        names.parallelStream().distinct().forEach(name -> pool.get(name, prewarmCreator));
+        return pool.size();
+    }
+
+    // 只保存当前实例的key，实例本身在加载时重新创建
+    public void writeSnapshot(OutputStream out) throws IOException {
+        FactorySnapshot.write(pool.keys(), out);
+    }
+
+    public int loadSnapshot(InputStream in) throws IOException {
+        return prewarm(FactorySnapshot.read(in));
+    }
+
+    private Chess create(String key, boolean miss) {
+        long start = System.nanoTime();
+        Chess chess = new WhiteAndBlackChess(key);
+        metrics.recordCreation(System.nanoTime() - start, FactoryMetrics.estimateSize(key), miss);
+        return chess;
+    }
+
+    public PoolStats stats() {
+        return pool.stats();
+    }
+
+    public FactoryMetrics metrics() {
+        return metrics;
+    }
+
+    // 把统计注册到平台的MBean服务器，可以用jconsole等工具查看
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.xiaoxu.principle.flyweight:type=Factory,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("注册MBean失败：" + name, e);
         }
-        WhiteAndBlackChess value = new WhiteAndBlackChess();
-        map.put(name, value);
-        System.out.println("创建" + name + "实例");
-        return value;
     }
 }
@@ -0,0 +1,53 @@
+package com.xiaoxu.principle.flyweight;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// 多线程同时从享元工厂获取实例，线程数从1到64
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryBenchmark {
+    static final String[] NAMES = {"黑棋", "白棋", "红棋", "蓝棋", "绿棋", "黄棋", "紫棋", "灰棋"};
+
+    private Factory factory;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+
+        String next() {
+            index = (index + 1) & (NAMES.length - 1);
+            return NAMES[index];
+        }
+    }
+
+    @Setup
+    public void setup() {
+        factory = new Factory();
+        for (String name : NAMES) {
+            factory.getChess(name);
+        }
+    }
+
+    @Benchmark
+    public Chess getChess(Cursor cursor) {
+        return factory.getChess(cursor.next());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            new Runner(new OptionsBuilder()
+                    .include(FactoryBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 享元工厂的统计：调用次数、命中与未命中、创建耗时的直方图和实例占用内存的估计值
+ * <p>
+ * 计数都用LongAdder，多个线程同时获取实例时不会争用同一个变量
+ */
+public class FactoryMetrics implements FactoryMetricsMXBean {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder creationNanos = new LongAdder();
+    private final LongAdder createdBytes = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final LongSupplier live;
+
+    // live返回池中当前的实例数
+    public FactoryMetrics(LongSupplier live) {
+        this.live = live;
+    }
+
+    void recordCall() {
+        calls.increment();
+    }
+
+    // 预热时创建的实例不算未命中
+    void recordCreation(long nanos, long bytes, boolean miss) {
+        if (miss) {
+            misses.increment();
+        }
+        created.increment();
+        creationNanos.add(nanos);
+        createdBytes.add(bytes);
+        histogram.incrementAndGet(nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getHits() {
+        // 两个计数分别读取，并发时可能有很小的误差
+        return Math.max(0, getCalls() - getMisses());
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long calls = getCalls();
+        return calls == 0 ? 0 : (double) getHits() / calls;
+    }
+
+    @Override
+    public long getLiveInstances() {
+        return live.getAsLong();
+    }
+
+    // 按创建过的实例的平均大小乘以当前实例数估算
+    @Override
+    public long getRetainedBytes() {
+        long created = this.created.sum();
+        return created == 0 ? 0 : createdBytes.sum() / created * getLiveInstances();
+    }
+
+    @Override
+    public double getMeanCreationNanos() {
+        long created = this.created.sum();
+        return created == 0 ? 0 : (double) creationNanos.sum() / created;
+    }
+
+    @Override
+    public long[] getCreationHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    // 按64位JVM开启压缩指针估算一个WhiteAndBlackChess及它的颜色字符串的大小
+    static long estimateSize(String color) {
+        long chess = 16;
+        long string = 24;
+        long chars = align(16 + (long) color.length() * 2);
+        return chess + string + chars;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    @Override
+    public String toString() {
+        return "FactoryMetrics{" +
+                "calls=" + getCalls() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                ", live=" + getLiveInstances() +
+                ", retainedBytes=" + getRetainedBytes() +
+                ", meanCreationNanos=" + String.format("%.0f", getMeanCreationNanos()) +
+                '}';
+    }
+}
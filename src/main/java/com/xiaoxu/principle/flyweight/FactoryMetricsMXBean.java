@@ -0,0 +1,21 @@
+package com.xiaoxu.principle.flyweight;
+
+// 通过JMX查看享元工厂的运行情况
+public interface FactoryMetricsMXBean {
+    long getCalls();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRatio();
+
+    long getLiveInstances();
+
+    long getRetainedBytes();
+
+    double getMeanCreationNanos();
+
+    // 下标i的桶统计创建耗时在[2^i, 2^(i+1))纳秒之间的次数
+    long[] getCreationHistogram();
+}
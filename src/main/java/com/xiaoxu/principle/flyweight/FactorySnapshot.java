@@ -0,0 +1,50 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 享元工厂的快照，只保存key，重启后根据key重新创建实例
+ * <p>
+ * 格式：魔数、版本号、key的个数，然后依次是每个key的modified UTF-8
+ */
+public class FactorySnapshot {
+    private static final int MAGIC = 0x464c5957;
+    private static final int VERSION = 1;
+
+    private FactorySnapshot() {
+    }
+
+    public static void write(Collection<String> keys, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(keys.size());
+        for (String key : keys) {
+            data.writeUTF(key);
+        }
+        data.flush();
+    }
+
+    public static List<String> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("不是享元工厂的快照");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("不支持的快照版本：" + version);
+        }
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("快照已损坏，key的个数为" + count);
+        }
+        List<String> keys = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            keys.add(data.readUTF());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,36 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.List;
+import java.util.function.Function;
+
+// 存放享元实例的池，不同的实现按不同的方式保留实例
+public interface FlyweightPool<K, V> {
+
+    // 取出key对应的实例，不存在时用creator创建；同一时刻同一个key只会创建一个实例
+    V get(K key, Function<? super K, ? extends V> creator);
+
+    int size();
+
+    // 当前保留的key的快照
+    List<K> keys();
+
+    PoolStats stats();
+
+    // maximumSize只对LRU和LFU有效
+    static <K, V> FlyweightPool<K, V> of(Retention retention, int maximumSize) {
+        switch (retention) {
+            case STRONG:
+                return new StrongPool<>();
+            case WEAK:
+                return new ReferencePool<>(false);
+            case SOFT:
+                return new ReferencePool<>(true);
+            case LRU:
+                return new LruPool<>(maximumSize);
+            case LFU:
+                return new LfuPool<>(maximumSize);
+            default:
+                throw new IllegalArgumentException("不支持的保留方式：" + retention);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 限制实例个数，超出时淘汰使用次数最少的实例，次数相同时淘汰最早进入该次数的
+ * <p>
+ * 按使用次数分桶，minFrequency记录最小的次数，读写和淘汰都是O(1)
+ */
+public class LfuPool<K, V> implements FlyweightPool<K, V> {
+    private final int maximumSize;
+    private final HashMap<K, Node<V>> map = new HashMap<>();
+    private final HashMap<Long, LinkedHashSet<K>> buckets = new HashMap<>();
+    private long minFrequency;
+    private long evictions;
+
+    public LfuPool(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("容量必须大于0：" + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public synchronized V get(K key, Function<? super K, ? extends V> creator) {
+        Node<V> node = map.get(key);
+        if (node != null) {
+            touch(key, node);
+            return node.value;
+        }
+        // 先创建再淘汰，creator抛出异常时缓存不变
+        node = new Node<>(creator.apply(key));
+        if (map.size() >= maximumSize) {
+            evict();
+        }
+        map.put(key, node);
+        buckets.computeIfAbsent(1L, f -> new LinkedHashSet<>()).add(key);
+        minFrequency = 1;
+        return node.value;
+    }
+
+    private void touch(K key, Node<V> node) {
+        LinkedHashSet<K> bucket = buckets.get(node.frequency);
+        bucket.remove(key);
+        if (bucket.isEmpty()) {
+            buckets.remove(node.frequency);
+            if (minFrequency == node.frequency) {
+                minFrequency++;
+            }
+        }
+        node.frequency++;
+        buckets.computeIfAbsent(node.frequency, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void evict() {
+        LinkedHashSet<K> bucket = buckets.get(minFrequency);
+        Iterator<K> iterator = bucket.iterator();
+        K key = iterator.next();
+        iterator.remove();
+        if (bucket.isEmpty()) {
+            buckets.remove(minFrequency);
+        }
+        map.remove(key);
+        evictions++;
+    }
+
+    @Override
+    public synchronized int size() {
+        return map.size();
+    }
+
+    @Override
+    public synchronized List<K> keys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Override
+    public synchronized PoolStats stats() {
+        return new PoolStats(map.size(), evictions, 0);
+    }
+
+    private static class Node<V> {
+        private final V value;
+        private long frequency = 1;
+
+        Node(V value) {
+            this.value = value;
+        }
+    }
+}
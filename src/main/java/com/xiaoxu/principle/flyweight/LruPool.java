@@ -0,0 +1,56 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// 限制实例个数，超出时淘汰最久没有使用的实例；LinkedHashMap按访问顺序排列，读写都要加锁
+public class LruPool<K, V> implements FlyweightPool<K, V> {
+    private final int maximumSize;
+    private final LinkedHashMap<K, V> map;
+    private long evictions;
+
+    public LruPool(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("容量必须大于0：" + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruPool.this.maximumSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized V get(K key, Function<? super K, ? extends V> creator) {
+        V value = map.get(key);
+        if (value == null) {
+            value = creator.apply(key);
+            map.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized int size() {
+        return map.size();
+    }
+
+    @Override
+    public synchronized List<K> keys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Override
+    public synchronized PoolStats stats() {
+        return new PoolStats(map.size(), evictions, 0);
+    }
+}
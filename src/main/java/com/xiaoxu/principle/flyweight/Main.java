@@ -9,5 +9,6 @@ public class Main {
         blackChess2.use();
         Chess whiteChess = factory.getChess("白棋");
         whiteChess.use();
+        System.out.println(factory.metrics());
     }
 }
@@ -0,0 +1,23 @@
+package com.xiaoxu.principle.flyweight;
+
+// 享元池的统计：当前的实例数，因为超出容量被淘汰的个数，被GC回收的个数
+public class PoolStats {
+    public final long live;
+    public final long evictions;
+    public final long reclaimed;
+
+    public PoolStats(long live, long evictions, long reclaimed) {
+        this.live = live;
+        this.evictions = evictions;
+        this.reclaimed = reclaimed;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "live=" + live +
+                ", evictions=" + evictions +
+                ", reclaimed=" + reclaimed +
+                '}';
+    }
+}
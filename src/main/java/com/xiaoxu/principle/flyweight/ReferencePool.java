@@ -0,0 +1,114 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// 用弱引用或软引用保存实例，没有其他地方使用的实例可以被GC回收
+public class ReferencePool<K, V> implements FlyweightPool<K, V> {
+    private final ConcurrentHashMap<K, Reference<V>> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+    private final boolean soft;
+    private final LongAdder reclaimed = new LongAdder();
+
+    public ReferencePool(boolean soft) {
+        this.soft = soft;
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> creator) {
+        Reference<V> reference = map.get(key);
+        V value = reference == null ? null : reference.get();
+        if (value != null) {
+            return value;
+        }
+        expunge();
+        // 在compute中检查并替换已经被回收的引用，同一个key只会创建一个实例；
+        // 新实例放在数组里带出来，保证返回之前不会被回收
+        Object[] created = new Object[1];
+        map.compute(key, (k, old) -> {
+            V current = old == null ? null : old.get();
+            if (current != null) {
+                created[0] = current;
+                return old;
+            }
+            // 引用已经被清除但还没有进入队列，在这里计数；替换之后expunge删除它会失败，不会重复计数
+            if (old != null) {
+                reclaimed.increment();
+            }
+            V instance = creator.apply(k);
+            created[0] = instance;
+            return soft ? new SoftValue<>(k, instance, queue) : new WeakValue<>(k, instance, queue);
+        });
+        @SuppressWarnings("unchecked")
+        V result = (V) created[0];
+        return result;
+    }
+
+    @Override
+    public int size() {
+        expunge();
+        return map.size();
+    }
+
+    @Override
+    public List<K> keys() {
+        expunge();
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Override
+    public PoolStats stats() {
+        expunge();
+        return new PoolStats(map.size(), 0, reclaimed.sum());
+    }
+
+    // 删除已经被GC回收的实例对应的条目；已经被get替换掉的引用删除失败，不再计数
+    private void expunge() {
+        Reference<? extends V> reference;
+        while ((reference = queue.poll()) != null) {
+            Object key = ((Keyed) reference).key();
+            if (map.remove(key, reference)) {
+                reclaimed.increment();
+            }
+        }
+    }
+
+    private interface Keyed {
+        Object key();
+    }
+
+    private static class WeakValue<V> extends WeakReference<V> implements Keyed {
+        private final Object key;
+
+        WeakValue(Object key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+    }
+
+    private static class SoftValue<V> extends SoftReference<V> implements Keyed {
+        private final Object key;
+
+        SoftValue(Object key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+    }
+}
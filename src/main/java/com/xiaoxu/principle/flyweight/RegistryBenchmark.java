@@ -0,0 +1,58 @@
+package com.xiaoxu.principle.flyweight;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// 字符串为key的Factory与按枚举下标查找的ChessRegistry对比
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+    private static final String[] NAMES = {"黑棋", "白棋"};
+    private static final ChessKind[] KINDS = {ChessKind.BLACK, ChessKind.WHITE};
+
+    private Factory factory;
+    private ChessRegistry registry;
+    private int index;
+
+    @Setup
+    public void setup() {
+        factory = new Factory();
+        registry = new ChessRegistry();
+        for (String name : NAMES) {
+            factory.getChess(name);
+        }
+    }
+
+    @Benchmark
+    public Chess factory() {
+        index ^= 1;
+        // 每次都用新的字符串，避免String缓存的hash影响结果
+        return factory.getChess(new String(NAMES[index]));
+    }
+
+    @Benchmark
+    public Chess registryByName() {
+        index ^= 1;
+        return registry.getChess(new String(NAMES[index]));
+    }
+
+    @Benchmark
+    public Chess registryByKind() {
+        index ^= 1;
+        return registry.getChess(KINDS[index]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RegistryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,15 @@
+package com.xiaoxu.principle.flyweight;
+
+// 享元池保留实例的方式
+public enum Retention {
+    // 一直保留
+    STRONG,
+    // 没有其他地方引用时，下次GC就回收
+    WEAK,
+    // 没有其他地方引用时，内存不足才回收
+    SOFT,
+    // 限制个数，淘汰最久没有使用的
+    LRU,
+    // 限制个数，淘汰使用次数最少的
+    LFU
+}
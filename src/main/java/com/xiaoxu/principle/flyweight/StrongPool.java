@@ -0,0 +1,36 @@
+package com.xiaoxu.principle.flyweight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// 实例一直保留，命中时不加锁
+public class StrongPool<K, V> implements FlyweightPool<K, V> {
+    private final ConcurrentHashMap<K, V> map = new ConcurrentHashMap<>();
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> creator) {
+        V value = map.get(key);
+        if (value != null) {
+            return value;
+        }
+        // computeIfAbsent对同一个key是原子的，多个线程同时请求也只会创建一个实例
+        return map.computeIfAbsent(key, creator);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public List<K> keys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Override
+    public PoolStats stats() {
+        return new PoolStats(map.size(), 0, 0);
+    }
+}
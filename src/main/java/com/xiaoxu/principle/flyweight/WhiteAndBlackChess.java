@@ -1,8 +1,24 @@
 package com.xiaoxu.principle.flyweight;
 
 public class WhiteAndBlackChess extends Chess{
+    // 颜色是内部状态，所有同色的棋子共用
+    private final String color;
+
+    public WhiteAndBlackChess(String color) {
+        this.color = color;
+    }
+
     @Override
     public void use() {
-        System.out.println("使用了棋子");
+        System.out.println("使用了" + color);
+    }
+
+    @Override
+    public void use(int x, int y, int owner) {
+        System.out.println("玩家" + owner + "在(" + x + ", " + y + ")放了" + color);
+    }
+
+    public String getColor() {
+        return color;
     }
 }
@@ -0,0 +1,74 @@
+package com.xiaoxu.principle.interpreter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 逐行用HashMap计算与按列批量计算的对比
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    @Param({"1000000"})
+    private int rows;
+
+    private Calculator calculator;
+    private String[] variables;
+    private int[][] intColumns;
+    private long[][] longColumns;
+    private int[] intOut;
+    private long[] longOut;
+
+    @Setup
+    public void setup() {
+        calculator = new Calculator("a+b-c+d-e+f");
+        variables = calculator.getVariables();
+        intColumns = new int[variables.length][rows];
+        longColumns = new long[variables.length][rows];
+        Random random = new Random(42);
+        for (int i = 0; i < variables.length; i++) {
+            for (int j = 0; j < rows; j++) {
+                intColumns[i][j] = random.nextInt(10000);
+                longColumns[i][j] = intColumns[i][j];
+            }
+        }
+        intOut = new int[rows];
+        longOut = new long[rows];
+    }
+
+    @Benchmark
+    public int[] perRowMap() {
+        HashMap<String, Integer> var = new HashMap<>();
+        for (int j = 0; j < rows; j++) {
+            for (int i = 0; i < variables.length; i++) {
+                var.put(variables[i], intColumns[i][j]);
+            }
+            intOut[j] = calculator.run(var);
+        }
+        return intOut;
+    }
+
+    @Benchmark
+    public int[] batchInt() {
+        calculator.runBatch(intColumns, intOut);
+        return intOut;
+    }
+
+    @Benchmark
+    public long[] batchLong() {
+        calculator.runBatch(longColumns, longOut);
+        return longOut;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,338 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 按列批量计算：一次算完一个节点在一整块行上的结果，循环简单，JIT可以做向量化
+public class BatchEvaluator {
+    // 每块的行数，块内的临时列可以放进L1缓存
+    private static final int CHUNK = 1024;
+    // 行数超过这个值时拆分到多个核上计算
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    // columns按槽位存放每个变量的一列值，shared是按依赖顺序排列的公共子表达式
+    public static void run(Expression expression, SharedExpression[] shared, int[][] columns, int[] out) {
+        split((from, to) -> new IntKernel(expression, shared, columns).run(out, from, to), out.length);
+    }
+
+    public static void run(Expression expression, SharedExpression[] shared, long[][] columns, long[] out) {
+        split((from, to) -> new LongKernel(expression, shared, columns).run(out, from, to), out.length);
+    }
+
+    private static void split(Range range, int rows) {
+        if (rows < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            range.run(0, rows);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new Task(range, 0, rows));
+    }
+
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    private static class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Range range;
+        private final int from, to;
+
+        Task(Range range, int from, int to) {
+            this.range = range;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                range.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Task(range, from, middle), new Task(range, middle, to));
+        }
+    }
+
+    // 每个线程一个，临时列在块之间复用
+    private static class IntKernel {
+        private final Expression expression;
+        private final SharedExpression[] shared;
+        private final int[][] columns;
+        // 公共子表达式在当前块上的结果，下标是槽位减去第一个公共子表达式的槽位
+        private final int[][] sharedColumns;
+        private final int firstShared;
+        private final ArrayDeque<int[]> scratch = new ArrayDeque<>();
+
+        IntKernel(Expression expression, SharedExpression[] shared, int[][] columns) {
+            this.expression = expression;
+            this.shared = shared;
+            this.columns = columns;
+            this.sharedColumns = new int[shared.length][CHUNK];
+            this.firstShared = shared.length == 0 ? 0 : shared[0].getSlot();
+        }
+
+        void run(int[] out, int from, int to) {
+            for (int start = from; start < to; start += CHUNK) {
+                int len = Math.min(CHUNK, to - start);
+                for (int i = 0; i < shared.length; i++) {
+                    eval(shared[i].definition, start, len, sharedColumns[i], 0);
+                }
+                eval(expression, start, len, out, start);
+            }
+        }
+
+        // 计算第from行开始的len行，结果写到dst[off, off + len)
+        private void eval(Expression node, int from, int len, int[] dst, int off) {
+            if (node instanceof VariableExpression) {
+                System.arraycopy(columns[((VariableExpression) node).getSlot()], from, dst, off, len);
+                return;
+            }
+            if (node instanceof SharedExpression) {
+                System.arraycopy(sharedColumns[((SharedExpression) node).getSlot() - firstShared], 0, dst, off, len);
+                return;
+            }
+            if (node instanceof ConstantExpression) {
+                Arrays.fill(dst, off, off + len, ((ConstantExpression) node).getValue());
+                return;
+            }
+            if (node instanceof SumExpression) {
+                SumExpression sum = (SumExpression) node;
+                eval(sum.terms[0], from, len, dst, off);
+                if (sum.negative[0]) {
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] = -dst[off + i];
+                    }
+                }
+                for (int i = 1; i < sum.terms.length; i++) {
+                    combine(sum.negative[i] ? '-' : '+', sum.terms[i], from, len, dst, off);
+                }
+                return;
+            }
+            OperationExpression operation = (OperationExpression) node;
+            eval(operation.left, from, len, dst, off);
+            combine(operation.getOperator(), operation.right, from, len, dst, off);
+        }
+
+        // dst = dst operator right，右边是常量或变量时直接使用，不用先复制到临时列
+        private void combine(char operator, Expression right, int from, int len, int[] dst, int off) {
+            if (right instanceof ConstantExpression) {
+                applyScalar(operator, dst, off, ((ConstantExpression) right).getValue(), len);
+            } else if (right instanceof VariableExpression) {
+                apply(operator, dst, off, columns[((VariableExpression) right).getSlot()], from, len);
+            } else if (right instanceof SharedExpression) {
+                apply(operator, dst, off, sharedColumns[((SharedExpression) right).getSlot() - firstShared], 0, len);
+            } else {
+                int[] temp = scratch.isEmpty() ? new int[CHUNK] : scratch.pop();
+                eval(right, from, len, temp, 0);
+                apply(operator, dst, off, temp, 0, len);
+                scratch.push(temp);
+            }
+        }
+
+        private static void apply(char operator, int[] dst, int off, int[] src, int srcOff, int len) {
+            switch (operator) {
+                case '+':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] += src[srcOff + i];
+                    }
+                    break;
+                case '-':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] -= src[srcOff + i];
+                    }
+                    break;
+                case '*':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] *= src[srcOff + i];
+                    }
+                    break;
+                case '/':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] /= src[srcOff + i];
+                    }
+                    break;
+                case '%':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] %= src[srcOff + i];
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的运算符：" + operator);
+            }
+        }
+
+        private static void applyScalar(char operator, int[] dst, int off, int value, int len) {
+            switch (operator) {
+                case '+':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] += value;
+                    }
+                    break;
+                case '-':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] -= value;
+                    }
+                    break;
+                case '*':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] *= value;
+                    }
+                    break;
+                case '/':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] /= value;
+                    }
+                    break;
+                case '%':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] %= value;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的运算符：" + operator);
+            }
+        }
+    }
+
+    private static class LongKernel {
+        private final Expression expression;
+        private final SharedExpression[] shared;
+        private final long[][] columns;
+        // 公共子表达式在当前块上的结果，下标是槽位减去第一个公共子表达式的槽位
+        private final long[][] sharedColumns;
+        private final int firstShared;
+        private final ArrayDeque<long[]> scratch = new ArrayDeque<>();
+
+        LongKernel(Expression expression, SharedExpression[] shared, long[][] columns) {
+            this.expression = expression;
+            this.shared = shared;
+            this.columns = columns;
+            this.sharedColumns = new long[shared.length][CHUNK];
+            this.firstShared = shared.length == 0 ? 0 : shared[0].getSlot();
+        }
+
+        void run(long[] out, int from, int to) {
+            for (int start = from; start < to; start += CHUNK) {
+                int len = Math.min(CHUNK, to - start);
+                for (int i = 0; i < shared.length; i++) {
+                    eval(shared[i].definition, start, len, sharedColumns[i], 0);
+                }
+                eval(expression, start, len, out, start);
+            }
+        }
+
+        private void eval(Expression node, int from, int len, long[] dst, int off) {
+            if (node instanceof VariableExpression) {
+                System.arraycopy(columns[((VariableExpression) node).getSlot()], from, dst, off, len);
+                return;
+            }
+            if (node instanceof SharedExpression) {
+                System.arraycopy(sharedColumns[((SharedExpression) node).getSlot() - firstShared], 0, dst, off, len);
+                return;
+            }
+            if (node instanceof ConstantExpression) {
+                Arrays.fill(dst, off, off + len, ((ConstantExpression) node).getValue());
+                return;
+            }
+            if (node instanceof SumExpression) {
+                SumExpression sum = (SumExpression) node;
+                eval(sum.terms[0], from, len, dst, off);
+                if (sum.negative[0]) {
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] = -dst[off + i];
+                    }
+                }
+                for (int i = 1; i < sum.terms.length; i++) {
+                    combine(sum.negative[i] ? '-' : '+', sum.terms[i], from, len, dst, off);
+                }
+                return;
+            }
+            OperationExpression operation = (OperationExpression) node;
+            eval(operation.left, from, len, dst, off);
+            combine(operation.getOperator(), operation.right, from, len, dst, off);
+        }
+
+        // dst = dst operator right，右边是常量或变量时直接使用，不用先复制到临时列
+        private void combine(char operator, Expression right, int from, int len, long[] dst, int off) {
+            if (right instanceof ConstantExpression) {
+                applyScalar(operator, dst, off, ((ConstantExpression) right).getValue(), len);
+            } else if (right instanceof VariableExpression) {
+                apply(operator, dst, off, columns[((VariableExpression) right).getSlot()], from, len);
+            } else if (right instanceof SharedExpression) {
+                apply(operator, dst, off, sharedColumns[((SharedExpression) right).getSlot() - firstShared], 0, len);
+            } else {
+                long[] temp = scratch.isEmpty() ? new long[CHUNK] : scratch.pop();
+                eval(right, from, len, temp, 0);
+                apply(operator, dst, off, temp, 0, len);
+                scratch.push(temp);
+            }
+        }
+
+        private static void apply(char operator, long[] dst, int off, long[] src, int srcOff, int len) {
+            switch (operator) {
+                case '+':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] += src[srcOff + i];
+                    }
+                    break;
+                case '-':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] -= src[srcOff + i];
+                    }
+                    break;
+                case '*':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] *= src[srcOff + i];
+                    }
+                    break;
+                case '/':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] /= src[srcOff + i];
+                    }
+                    break;
+                case '%':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] %= src[srcOff + i];
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的运算符：" + operator);
+            }
+        }
+
+        private static void applyScalar(char operator, long[] dst, int off, long value, int len) {
+            switch (operator) {
+                case '+':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] += value;
+                    }
+                    break;
+                case '-':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] -= value;
+                    }
+                    break;
+                case '*':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] *= value;
+                    }
+                    break;
+                case '/':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] /= value;
+                    }
+                    break;
+                case '%':
+                    for (int i = 0; i < len; i++) {
+                        dst[off + i] %= value;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的运算符：" + operator);
+            }
+        }
+    }
+}
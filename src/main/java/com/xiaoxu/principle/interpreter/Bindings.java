@@ -0,0 +1,42 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// 可重复使用的变量绑定，按名称设置的值直接写入对应的槽位
+public class Bindings {
+    private final Map<String, Integer> slots;
+    private final int[] values;
+
+    public Bindings(Map<String, Integer> slots) {
+        this(slots, slots.size());
+    }
+
+    // slotCount大于变量个数时，多出来的槽位用来存放公共子表达式的中间结果
+    public Bindings(Map<String, Integer> slots, int slotCount) {
+        this.slots = slots;
+        this.values = new int[slotCount];
+    }
+
+    public Bindings set(String name, int value) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("表达式中没有变量：" + name);
+        }
+        values[slot] = value;
+        return this;
+    }
+
+    public Bindings set(int slot, int value) {
+        values[slot] = value;
+        return this;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+    }
+
+    public int[] values() {
+        return values;
+    }
+}
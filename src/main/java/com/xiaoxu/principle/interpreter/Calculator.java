@@ -1,33 +1,283 @@
 package com.xiaoxu.principle.interpreter;
 
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Stack;
+import java.util.Map;
 
 public class Calculator {
+    // 表达式树深度超过这个值时不再递归计算，改为执行后缀指令
+    private static final int MAX_RECURSION_DEPTH = 512;
+
     private Expression expression;
+    // 变量名到槽位的映射，以及按槽位排列的变量名
+    private Map<String, Integer> slots;
+    private String[] variables;
+    // 公共子表达式，每次计算时按顺序先算出来
+    private SharedExpression[] shared;
+    // 编译后的表达式，为null时遍历表达式树
+    private CompiledExpression compiled;
+    private PostfixProgram program;
+    private boolean deep;
+    private int nodesBefore, nodesAfter;
+    // 没有优化过的表达式，long、溢出检查和精确计算使用，保证和书写的表达式逐步一致
+    private Expression exact;
+    private SharedExpression[] exactShared;
+    private PostfixProgram exactProgram;
+    private boolean exactDeep;
+
+    /**
+     * 解析结果从默认的缓存中获取，相同的表达式只解析一次
+     *
+     * @throws ExpressionParseException 表达式有语法错误
+     */
     public Calculator(String expression) {
-        char[] chars = expression.toCharArray();
-        Stack<Expression> stack = new Stack<>();
-        for (int i = 0; i < chars.length; i++) {
-            switch (chars[i]) {
-                case '+':
-                    Expression left = stack.pop();
-                    Expression right = new VariableExpression(String.valueOf(chars[++i]));
-                    stack.push(new AddOperationExpression(left, right));
-                    break;
-                case '-':
-                    Expression left2 = stack.pop();
-                    Expression right2 = new VariableExpression(String.valueOf(chars[++i]));
-                    stack.push(new SubtractOperationExpression(left2, right2));
-                    break;
-                default:
-                    stack.push(new VariableExpression(String.valueOf(chars[i])));
-            }
+        this(expression, ExpressionCache.getDefault());
+    }
+
+    public Calculator(String expression, ExpressionCache cache) {
+        this(cache.get(expression));
+    }
+
+    public Calculator(ParsedExpression parsed) {
+        this.expression = parsed.expression;
+        this.slots = parsed.slots;
+        this.variables = parsed.variables;
+        this.shared = parsed.shared;
+        this.program = parsed.program;
+        this.deep = program.getDepth() > MAX_RECURSION_DEPTH;
+        this.nodesBefore = parsed.nodesBefore;
+        this.nodesAfter = parsed.nodesAfter;
+        this.exact = parsed.exact;
+        this.exactShared = parsed.exactShared;
+        this.exactProgram = parsed.exactProgram;
+        this.exactDeep = exactProgram.getDepth() > MAX_RECURSION_DEPTH;
+    }
+
+    // 编译模式：同一个表达式需要反复计算时，先编译成字节码；表达式树太深时不编译
+    public Calculator compile() {
+        if (compiled == null && !deep) {
+            compiled = ExpressionCompiler.compile(expression, shared);
         }
-        this.expression = stack.pop();
+        return this;
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
     }
 
     public int run(HashMap<String, Integer> var) {
-        return expression.interpret(var);
+        if (compiled != null) {
+            return compiled.run(var);
+        }
+        if (shared.length == 0 && !deep) {
+            return expression.interpret(var);
+        }
+        // 有公共子表达式时转成按槽位计算，每个公共子表达式只算一次
+        int[] values = new int[variables.length + shared.length];
+        for (int i = 0; i < variables.length; i++) {
+            values[i] = var.get(variables[i]);
+        }
+        return evaluate(values);
+    }
+
+    /**
+     * values按槽位存放变量值，见getVariables
+     * <p>
+     * 有公共子表达式时，长度不小于getSlotCount的数组原地计算，变量后面的槽位会被改写，不分配内存；
+     * 长度不够时每次计算都要复制一份
+     */
+    public int run(int[] values) {
+        if (compiled != null) {
+            return compiled.run(values);
+        }
+        if (shared.length == 0) {
+            return deep ? program.run(values) : expression.interpret(values);
+        }
+        return evaluate(work(values, shared.length));
+    }
+
+    // Bindings中预留了公共子表达式的槽位，计算时不需要分配内存
+    public int run(Bindings bindings) {
+        if (compiled != null || shared.length == 0) {
+            return run(bindings.values());
+        }
+        return evaluate(bindings.values());
+    }
+
+    // int计算，溢出时抛出ArithmeticException，不会悄悄回绕；按书写的顺序计算，中间结果溢出也会抛出异常。
+    // 和下面的runLong、runExact一样，长度不小于getExactSlotCount的数组原地计算，否则复制一份
+    public int runChecked(int[] values) {
+        int[] work = work(values, exactShared.length);
+        if (exactDeep) {
+            return exactProgram.runChecked(work);
+        }
+        for (SharedExpression node : exactShared) {
+            work[node.getSlot()] = OverflowEvaluator.checkedInt(node.definition, work);
+        }
+        return OverflowEvaluator.checkedInt(exact, work);
+    }
+
+    // long计算，变量也可以超出int的范围
+    public long runLong(long[] values) {
+        long[] work = work(values, exactShared.length);
+        if (exactDeep) {
+            return exactProgram.runLong(work);
+        }
+        for (SharedExpression node : exactShared) {
+            work[node.getSlot()] = OverflowEvaluator.longValue(node.definition, work);
+        }
+        return OverflowEvaluator.longValue(exact, work);
+    }
+
+    /**
+     * 精确计算，先用long计算，只有溢出时才改用BigInteger重新计算
+     *
+     * @throws ArithmeticException 除数为0
+     */
+    public BigInteger runExact(long[] values) {
+        long[] work = work(values, exactShared.length);
+        try {
+            if (exactDeep) {
+                return BigInteger.valueOf(exactProgram.runExact(work));
+            }
+            for (SharedExpression node : exactShared) {
+                work[node.getSlot()] = OverflowEvaluator.exactLong(node.definition, work);
+            }
+            return BigInteger.valueOf(OverflowEvaluator.exactLong(exact, work));
+        } catch (ArithmeticException e) {
+            // 溢出或者除数为0，除数为0时BigInteger计算会再次抛出异常
+            BigInteger[] big = new BigInteger[variables.length + exactShared.length];
+            for (int i = 0; i < variables.length; i++) {
+                big[i] = BigInteger.valueOf(values[i]);
+            }
+            if (exactDeep) {
+                return exactProgram.runBig(big);
+            }
+            for (SharedExpression node : exactShared) {
+                big[node.getSlot()] = OverflowEvaluator.big(node.definition, big);
+            }
+            return OverflowEvaluator.big(exact, big);
+        }
+    }
+
+    // 公共子表达式的结果放在变量后面的槽位，数组不够长时才复制
+    private int[] work(int[] values, int sharedCount) {
+        int length = variables.length + sharedCount;
+        return values.length >= length ? values : Arrays.copyOf(values, length);
+    }
+
+    private long[] work(long[] values, int sharedCount) {
+        int length = variables.length + sharedCount;
+        return values.length >= length ? values : Arrays.copyOf(values, length);
+    }
+
+    private int evaluate(int[] values) {
+        if (deep) {
+            return program.run(values);
+        }
+        for (SharedExpression node : shared) {
+            values[node.getSlot()] = node.definition.interpret(values);
+        }
+        return expression.interpret(values);
+    }
+
+    /**
+     * 批量计算，columns[slot]是对应变量的一整列值，结果写入out
+     *
+     * @param columns 按槽位排列的变量列，每列长度不小于out.length
+     */
+    public void runBatch(int[][] columns, int[] out) {
+        checkColumnCount(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            checkColumnLength(i, columns[i].length, out.length);
+        }
+        if (deep) {
+            int[] values = new int[variables.length + shared.length];
+            int[] stack = new int[program.getMaxStack()];
+            for (int row = 0; row < out.length; row++) {
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = columns[i][row];
+                }
+                out[row] = program.run(values, stack);
+            }
+            return;
+        }
+        BatchEvaluator.run(expression, shared, columns, out);
+    }
+
+    // 使用没有优化过的表达式，优化时按int折叠的常量在long中可能不成立
+    public void runBatch(long[][] columns, long[] out) {
+        checkColumnCount(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            checkColumnLength(i, columns[i].length, out.length);
+        }
+        if (exactDeep) {
+            long[] values = new long[variables.length + exactShared.length];
+            for (int row = 0; row < out.length; row++) {
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = columns[i][row];
+                }
+                out[row] = exactProgram.runLong(values);
+            }
+            return;
+        }
+        BatchEvaluator.run(exact, exactShared, columns, out);
+    }
+
+    private void checkColumnCount(int count) {
+        if (count != variables.length) {
+            throw new IllegalArgumentException("需要" + variables.length + "列，实际为" + count + "列");
+        }
+    }
+
+    private void checkColumnLength(int slot, int length, int rows) {
+        if (length < rows) {
+            throw new IllegalArgumentException("变量" + variables[slot] + "的列长度不足：" + length);
+        }
+    }
+
+    // 增量计算，values是各变量的初始值，之后只需要修改发生变化的变量
+    public IncrementalSession newSession(int[] values) {
+        return new IncrementalSession(expression, slots, values);
+    }
+
+    public Bindings newBindings() {
+        return new Bindings(slots, variables.length + shared.length);
+    }
+
+    // 优化后的表达式合并公共子表达式之前的节点个数
+    public int getNodesBefore() {
+        return nodesBefore;
+    }
+
+    // 合并之后的节点个数
+    public int getNodesAfter() {
+        return nodesAfter;
+    }
+
+    // 公共子表达式的个数
+    public int getSharedCount() {
+        return shared.length;
+    }
+
+    // run(int[])原地计算需要的数组长度：变量和公共子表达式的槽位数
+    public int getSlotCount() {
+        return variables.length + shared.length;
+    }
+
+    // runChecked、runLong、runExact原地计算需要的数组长度
+    public int getExactSlotCount() {
+        return variables.length + exactShared.length;
+    }
+
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    // 变量不存在时返回-1
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
     }
 }
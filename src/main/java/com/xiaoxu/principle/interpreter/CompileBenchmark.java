@@ -0,0 +1,64 @@
+package com.xiaoxu.principle.interpreter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+// 遍历表达式树与编译成字节码的性能对比
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+    private static final String EXPRESSION = "a+b-c+d-e+f+g-h+a-b";
+
+    private Calculator tree;
+    private Calculator compiled;
+    private HashMap<String, Integer> var;
+    private Bindings treeBindings;
+    private Bindings compiledBindings;
+
+    @Setup
+    public void setup() {
+        tree = new Calculator(EXPRESSION);
+        compiled = new Calculator(EXPRESSION).compile();
+        var = new HashMap<>();
+        for (char c = 'a'; c <= 'h'; c++) {
+            var.put(String.valueOf(c), c * 31);
+        }
+        treeBindings = tree.newBindings();
+        compiledBindings = compiled.newBindings();
+        var.forEach(treeBindings::set);
+        var.forEach(compiledBindings::set);
+    }
+
+    @Benchmark
+    public int tree() {
+        return tree.run(var);
+    }
+
+    @Benchmark
+    public int compiled() {
+        return compiled.run(var);
+    }
+
+    @Benchmark
+    public int treeSlots() {
+        return tree.run(treeBindings);
+    }
+
+    @Benchmark
+    public int compiledSlots() {
+        return compiled.run(compiledBindings);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompileBenchmark.class.getSimpleName()).build()).run();
+    }
+}
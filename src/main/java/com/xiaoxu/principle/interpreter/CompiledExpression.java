@@ -0,0 +1,10 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+
+// 由ExpressionCompiler生成的表达式类实现的接口
+public interface CompiledExpression {
+    int run(HashMap<String, Integer> var);
+
+    int run(int[] values);
+}
@@ -0,0 +1,26 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+
+// 整数常量
+public class ConstantExpression extends Expression {
+    private int value;
+
+    public ConstantExpression(int value) {
+        this.value = value;
+    }
+
+    @Override
+    public int interpret(HashMap<String, Integer> var) {
+        return value;
+    }
+
+    @Override
+    public int interpret(int[] values) {
+        return value;
+    }
+
+    public int getValue() {
+        return value;
+    }
+}
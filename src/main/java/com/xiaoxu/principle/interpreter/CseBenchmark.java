@@ -0,0 +1,67 @@
+package com.xiaoxu.principle.interpreter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+// 有大量重复子表达式时，表达式树与合并公共子表达式后的对比
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CseBenchmark {
+    private Calculator tree;
+    private Calculator dag;
+    private Bindings treeBindings;
+    private Bindings dagBindings;
+
+    // 同一个子表达式在不同的层次上反复出现
+    static String repeatedExpression() {
+        String t = "(price*count+tax*count)";
+        String u = "(" + t + "*" + t + "-" + t + "%7)";
+        String v = "(" + u + "*rate+" + u + "/(rate+1))";
+        StringBuilder builder = new StringBuilder(v);
+        for (int i = 0; i < 8; i++) {
+            builder.append(i % 2 == 0 ? "+" : "-").append(v).append("*").append(u);
+        }
+        return builder.toString();
+    }
+
+    @Setup
+    public void setup() {
+        String source = repeatedExpression();
+        ExpressionParser parser = new ExpressionParser(source);
+        Expression expression = ExpressionOptimizer.optimize(parser.parse());
+        HashMap<String, Integer> slots = parser.getSlots();
+        tree = new Calculator(new ParsedExpression(expression, slots));
+        dag = new Calculator(new ParsedExpression(ExpressionDag.build(expression, slots.size()), slots));
+        treeBindings = tree.newBindings();
+        dagBindings = dag.newBindings();
+        for (Bindings bindings : new Bindings[]{treeBindings, dagBindings}) {
+            bindings.set("price", 199).set("count", 3).set("tax", 17).set("rate", 5);
+        }
+    }
+
+    @Benchmark
+    public int tree() {
+        return tree.run(treeBindings);
+    }
+
+    @Benchmark
+    public int dag() {
+        return dag.run(dagBindings);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Calculator calculator = new Calculator(repeatedExpression());
+        System.out.println("合并前" + calculator.getNodesBefore() + "个节点，合并后" + calculator.getNodesAfter()
+                + "个节点，" + calculator.getSharedCount() + "个公共子表达式");
+        new Runner(new OptionsBuilder().include(CseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -6,4 +6,7 @@ import java.util.HashMap;
 public abstract class Expression {
 
     public abstract int interpret(HashMap<String, Integer> var);
+
+    // 按槽位取变量值，槽位在解析时确定
+    public abstract int interpret(int[] values);
 }
@@ -0,0 +1,170 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 解析结果的缓存，按规范化后的表达式文本查找
+ * <p>
+ * 按key的hash分成多个段，每段各自加锁，各自按LRU淘汰：段内是一个按访问顺序排列的LinkedHashMap，
+ * 超过这一段的容量时淘汰段内最久没有使用的；不同段之间互不阻塞。
+ * 各段容量之和等于maximumSize，所以淘汰的不一定是整个缓存中最久没有使用的
+ */
+public class ExpressionCache {
+    // 段数的上限，容量小于它时每段只放一个
+    private static final int SEGMENTS = 16;
+    private static final ExpressionCache DEFAULT = new ExpressionCache(1024);
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // maximumSize是总容量，平均分到每个段，除不尽的部分前面的段各多放一个
+    public ExpressionCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("缓存容量必须大于0：" + maximumSize);
+        }
+        int count = Math.min(SEGMENTS, maximumSize);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+    }
+
+    // Calculator默认使用的缓存
+    public static ExpressionCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 取出表达式的解析结果，不存在时解析后放入缓存
+     *
+     * @throws ExpressionParseException 表达式有语法错误，错误的表达式不会被缓存
+     */
+    public ParsedExpression get(String source) {
+        String key = normalize(source);
+        Segment segment = segments[(key.hashCode() & 0x7fffffff) % segments.length];
+        ParsedExpression parsed;
+        synchronized (segment) {
+            parsed = segment.get(key);
+        }
+        if (parsed != null) {
+            hits.increment();
+            return parsed;
+        }
+        misses.increment();
+        // 在锁外解析，长表达式不会阻塞同一段的其他查询；解析原文，出错时位置和输入一致
+        parsed = ParsedExpression.parse(source);
+        synchronized (segment) {
+            ParsedExpression existing = segment.putIfAbsent(key, parsed);
+            return existing == null ? parsed : existing;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionCache{" +
+                "size=" + size() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                '}';
+    }
+
+    // 去掉空白字符，只有两个名称或数字之间的空白保留一个空格，避免"a b"被当成"ab"
+    static String normalize(String source) {
+        StringBuilder builder = null;
+        int length = source.length();
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                if (builder != null) {
+                    builder.append(c);
+                }
+                continue;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(length).append(source, 0, i);
+            }
+            int next = i;
+            while (next < length && Character.isWhitespace(source.charAt(next))) {
+                next++;
+            }
+            if (builder.length() > 0 && next < length
+                    && isWord(builder.charAt(builder.length() - 1)) && isWord(source.charAt(next))) {
+                builder.append(' ');
+            }
+            i = next - 1;
+        }
+        return builder == null ? source : builder.toString();
+    }
+
+    private static boolean isWord(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private class Segment {
+        private final int capacity;
+        // 按访问顺序排列，第一个是最久没有使用的
+        private final LinkedHashMap<String, ParsedExpression> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        ParsedExpression get(String key) {
+            return map.get(key);
+        }
+
+        ParsedExpression putIfAbsent(String key, ParsedExpression parsed) {
+            ParsedExpression existing = map.putIfAbsent(key, parsed);
+            if (existing == null && map.size() > capacity) {
+                Iterator<String> eldest = map.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+            return existing;
+        }
+
+        int size() {
+            return map.size();
+        }
+
+        void clear() {
+            map.clear();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.xiaoxu.principle.interpreter;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodTooLargeException;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 把表达式树编译成字节码，生成的类直接做int运算，不再逐个节点调用interpret
+public class ExpressionCompiler implements Opcodes {
+    private static final String NAME = Type.getInternalName(ExpressionCompiler.class) + "$Generated";
+    private static final String HASH_MAP = "java/util/HashMap";
+
+    public static CompiledExpression compile(Expression expression) {
+        return compile(expression, new SharedExpression[0]);
+    }
+
+    /**
+     * 编译表达式，公共子表达式先算出来存到局部变量中
+     *
+     * @param shared 按依赖顺序排列的公共子表达式
+     * @return 编译后的表达式，方法体超过JVM限制时返回null，调用方继续遍历树
+     */
+    public static CompiledExpression compile(Expression expression, SharedExpression[] shared) {
+        try {
+            byte[] bytes = generate(expression, shared);
+            Class<?> clazz = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+            return (CompiledExpression) clazz.getDeclaredConstructor().newInstance();
+        } catch (MethodTooLargeException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法加载编译后的表达式", e);
+        }
+    }
+
+    private static byte[] generate(Expression expression, SharedExpression[] shared) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, NAME, null, "java/lang/Object",
+                new String[]{Type.getInternalName(CompiledExpression.class)});
+
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        // 每个变量只从map中取一次，放到局部变量表里，局部变量0是this，1是map
+        Map<String, Integer> locals = new LinkedHashMap<>();
+        collect(expression, locals);
+        // 公共子表达式的槽位加上这个偏移量就是它在局部变量表中的位置
+        int firstShared = shared.length == 0 ? 0 : shared[0].getSlot();
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "run", "(L" + HASH_MAP + ";)I", null, null);
+        mv.visitCode();
+        for (Map.Entry<String, Integer> entry : locals.entrySet()) {
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitLdcInsn(entry.getKey());
+            mv.visitMethodInsn(INVOKEVIRTUAL, HASH_MAP, "get", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+            mv.visitTypeInsn(CHECKCAST, "java/lang/Integer");
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
+            mv.visitVarInsn(ISTORE, entry.getValue());
+        }
+        emitShared(mv, shared, locals, 2 + locals.size() - firstShared);
+        emit(mv, expression, locals, 2 + locals.size() - firstShared);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // 按槽位取值的版本，变量直接从数组中读取
+        MethodVisitor slots = cw.visitMethod(ACC_PUBLIC, "run", "([I)I", null, null);
+        slots.visitCode();
+        emitShared(slots, shared, null, 2 - firstShared);
+        emit(slots, expression, null, 2 - firstShared);
+        slots.visitInsn(IRETURN);
+        slots.visitMaxs(0, 0);
+        slots.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void collect(Expression expression, Map<String, Integer> locals) {
+        if (expression instanceof VariableExpression) {
+            locals.putIfAbsent(((VariableExpression) expression).getKey(), locals.size() + 2);
+        } else if (expression instanceof ConstantExpression) {
+            return;
+        } else if (expression instanceof SumExpression) {
+            for (Expression term : ((SumExpression) expression).terms) {
+                collect(term, locals);
+            }
+        } else if (expression instanceof SharedExpression) {
+            collect(((SharedExpression) expression).definition, locals);
+        } else if (expression instanceof OperationExpression) {
+            OperationExpression operation = (OperationExpression) expression;
+            collect(operation.left, locals);
+            collect(operation.right, locals);
+        } else {
+            throw new IllegalArgumentException("不支持编译的表达式：" + expression.getClass().getName());
+        }
+    }
+
+    private static void emitShared(MethodVisitor mv, SharedExpression[] shared, Map<String, Integer> locals, int sharedOffset) {
+        for (SharedExpression expression : shared) {
+            emit(mv, expression.definition, locals, sharedOffset);
+            mv.visitVarInsn(ISTORE, expression.getSlot() + sharedOffset);
+        }
+    }
+
+    // locals为null时生成按槽位读取数组的代码
+    private static void emit(MethodVisitor mv, Expression expression, Map<String, Integer> locals, int sharedOffset) {
+        if (expression instanceof VariableExpression) {
+            VariableExpression variable = (VariableExpression) expression;
+            if (locals != null) {
+                mv.visitVarInsn(ILOAD, locals.get(variable.getKey()));
+            } else {
+                mv.visitVarInsn(ALOAD, 1);
+                pushInt(mv, variable.getSlot());
+                mv.visitInsn(IALOAD);
+            }
+            return;
+        }
+        if (expression instanceof ConstantExpression) {
+            pushInt(mv, ((ConstantExpression) expression).getValue());
+            return;
+        }
+        if (expression instanceof SharedExpression) {
+            mv.visitVarInsn(ILOAD, ((SharedExpression) expression).getSlot() + sharedOffset);
+            return;
+        }
+        if (expression instanceof SumExpression) {
+            SumExpression sum = (SumExpression) expression;
+            emit(mv, sum.terms[0], locals, sharedOffset);
+            if (sum.negative[0]) {
+                mv.visitInsn(INEG);
+            }
+            for (int i = 1; i < sum.terms.length; i++) {
+                emit(mv, sum.terms[i], locals, sharedOffset);
+                mv.visitInsn(sum.negative[i] ? ISUB : IADD);
+            }
+            return;
+        }
+        OperationExpression operation = (OperationExpression) expression;
+        emit(mv, operation.left, locals, sharedOffset);
+        emit(mv, operation.right, locals, sharedOffset);
+        switch (operation.getOperator()) {
+            case '+':
+                mv.visitInsn(IADD);
+                break;
+            case '-':
+                mv.visitInsn(ISUB);
+                break;
+            case '*':
+                mv.visitInsn(IMUL);
+                break;
+            case '/':
+                mv.visitInsn(IDIV);
+                break;
+            case '%':
+                mv.visitInsn(IREM);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operation.getOperator());
+        }
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 公共子表达式消除：结构相同的节点合并成一个，表达式树变成有向无环图
+ * <p>
+ * 被引用两次以上的运算节点包装成SharedExpression，槽位排在变量后面，
+ * shared按依赖顺序排列，先算前面的再算后面的
+ */
+public class ExpressionDag {
+    public final Expression expression;
+    public final SharedExpression[] shared;
+    // 合并前后的节点个数
+    public final int nodesBefore, nodesAfter;
+
+    private ExpressionDag(Expression expression, SharedExpression[] shared, int nodesBefore, int nodesAfter) {
+        this.expression = expression;
+        this.shared = shared;
+        this.nodesBefore = nodesBefore;
+        this.nodesAfter = nodesAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionDag{" +
+                "nodesBefore=" + nodesBefore +
+                ", nodesAfter=" + nodesAfter +
+                ", shared=" + shared.length +
+                '}';
+    }
+
+    // firstSlot是第一个公共子表达式的槽位，也就是变量的个数
+    public static ExpressionDag build(Expression root, int firstSlot) {
+        // 后序遍历，子节点先于父节点合并；用显式的栈，深的表达式树不会栈溢出
+        Map<Expression, Expression> canonical = new IdentityHashMap<>();
+        Map<Key, Expression> interned = new HashMap<>();
+        Map<Expression, Integer> references = new IdentityHashMap<>();
+        List<Expression> order = new ArrayList<>();
+        ArrayDeque<Expression> stack = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        int nodesBefore = 0;
+        stack.push(root);
+        expanded.push(false);
+        while (!stack.isEmpty()) {
+            Expression node = stack.pop();
+            if (!expanded.pop()) {
+                nodesBefore++;
+                stack.push(node);
+                expanded.push(true);
+                for (Expression child : children(node)) {
+                    stack.push(child);
+                    expanded.push(false);
+                }
+                continue;
+            }
+            Expression[] children = children(node);
+            for (int i = 0; i < children.length; i++) {
+                children[i] = canonical.get(children[i]);
+            }
+            Key key = new Key(node, children);
+            Expression result = interned.get(key);
+            if (result == null) {
+                result = copy(node, children);
+                interned.put(key, result);
+                order.add(result);
+                for (Expression child : children) {
+                    references.merge(child, 1, Integer::sum);
+                }
+            }
+            canonical.put(node, result);
+        }
+
+        // 被多次引用的运算节点改为引用SharedExpression
+        Map<Expression, SharedExpression> wrappers = new IdentityHashMap<>();
+        List<SharedExpression> shared = new ArrayList<>();
+        for (Expression node : order) {
+            replaceChildren(node, wrappers);
+            if (references.getOrDefault(node, 0) > 1 && !isLeaf(node)) {
+                SharedExpression wrapper = new SharedExpression(node, firstSlot + shared.size());
+                wrappers.put(node, wrapper);
+                shared.add(wrapper);
+            }
+        }
+        return new ExpressionDag(canonical.get(root), shared.toArray(new SharedExpression[0]), nodesBefore, order.size());
+    }
+
+    // 树的节点个数，共用的节点按引用次数重复计算
+    public static int countNodes(Expression root) {
+        int count = 0;
+        ArrayDeque<Expression> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Expression node = stack.pop();
+            count++;
+            for (Expression child : children(node)) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    private static boolean isLeaf(Expression node) {
+        return node instanceof VariableExpression || node instanceof ConstantExpression;
+    }
+
+    private static Expression[] children(Expression node) {
+        if (node instanceof OperationExpression) {
+            return new Expression[]{((OperationExpression) node).left, ((OperationExpression) node).right};
+        }
+        if (node instanceof SumExpression) {
+            return ((SumExpression) node).terms.clone();
+        }
+        return new Expression[0];
+    }
+
+    // 叶子节点直接复用，运算节点用合并后的子节点重新创建
+    private static Expression copy(Expression node, Expression[] children) {
+        if (node instanceof SumExpression) {
+            return new SumExpression(children, ((SumExpression) node).negative.clone());
+        }
+        if (!(node instanceof OperationExpression)) {
+            return node;
+        }
+        switch (((OperationExpression) node).getOperator()) {
+            case '+':
+                return new AddOperationExpression(children[0], children[1]);
+            case '-':
+                return new SubtractOperationExpression(children[0], children[1]);
+            case '*':
+                return new MultiplyOperationExpression(children[0], children[1]);
+            case '/':
+                return new DivideOperationExpression(children[0], children[1]);
+            case '%':
+                return new ModuloOperationExpression(children[0], children[1]);
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + ((OperationExpression) node).getOperator());
+        }
+    }
+
+    private static void replaceChildren(Expression node, Map<Expression, SharedExpression> wrappers) {
+        if (node instanceof OperationExpression) {
+            OperationExpression operation = (OperationExpression) node;
+            SharedExpression left = wrappers.get(operation.left), right = wrappers.get(operation.right);
+            if (left != null) {
+                operation.left = left;
+            }
+            if (right != null) {
+                operation.right = right;
+            }
+        } else if (node instanceof SumExpression) {
+            Expression[] terms = ((SumExpression) node).terms;
+            for (int i = 0; i < terms.length; i++) {
+                SharedExpression wrapper = wrappers.get(terms[i]);
+                if (wrapper != null) {
+                    terms[i] = wrapper;
+                }
+            }
+        }
+    }
+
+    // 节点的结构：类型、运算符或叶子的值，以及已经合并过的子节点（按引用比较）
+    private static class Key {
+        private final Object kind;
+        private final Object value;
+        private final Expression[] children;
+        private final int hash;
+
+        Key(Expression node, Expression[] children) {
+            this.kind = node.getClass();
+            if (node instanceof VariableExpression) {
+                value = ((VariableExpression) node).getKey();
+            } else if (node instanceof ConstantExpression) {
+                value = ((ConstantExpression) node).getValue();
+            } else if (node instanceof SumExpression) {
+                boolean[] negative = ((SumExpression) node).negative;
+                BitSet signs = new BitSet(negative.length);
+                for (int i = 0; i < negative.length; i++) {
+                    signs.set(i, negative[i]);
+                }
+                value = signs;
+            } else {
+                value = null;
+            }
+            this.children = children;
+            int h = kind.hashCode() * 31 + (value == null ? 0 : value.hashCode());
+            for (Expression child : children) {
+                h = h * 31 + System.identityHashCode(child);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            if (hash != key.hash || kind != key.kind || children.length != key.children.length
+                    || (value == null ? key.value != null : !value.equals(key.value))) {
+                return false;
+            }
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != key.children[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析之后的优化：常量折叠、去掉x+0、x*1这类恒等运算、抵消a-a，
+ * 并把连续的加减法展开成一个SumExpression，减少虚方法调用和递归深度
+ * <p>
+ * 常量按int折叠，并且假设运算溢出后回绕，这时加减法满足交换律和结合律，重新排列各项不会改变结果；
+ * 所以优化后的表达式只能用于int回绕的计算，long、溢出检查和精确计算要使用ParsedExpression.exact。
+ * 含有除法或取模的子树可能抛出除零异常，不会被消去
+ */
+public class ExpressionOptimizer {
+
+    public static Expression optimize(Expression expression) {
+        if (isAdditive(expression)) {
+            return sum(expression);
+        }
+        if (!(expression instanceof OperationExpression)) {
+            return expression;
+        }
+        // 沿左子树向下收集，左结合的长链不会递归
+        List<OperationExpression> spine = new ArrayList<>();
+        Expression node = expression;
+        while (node instanceof OperationExpression && !isAdditive(node)) {
+            spine.add((OperationExpression) node);
+            node = ((OperationExpression) node).left;
+        }
+        Expression left = optimize(node);
+        for (int i = spine.size() - 1; i >= 0; i--) {
+            OperationExpression operation = spine.get(i);
+            left = simplify(operation.getOperator(), left, optimize(operation.right));
+        }
+        return left;
+    }
+
+    private static boolean isAdditive(Expression expression) {
+        return expression instanceof AddOperationExpression
+                || expression instanceof SubtractOperationExpression
+                || expression instanceof SumExpression;
+    }
+
+    private static Expression simplify(char operator, Expression left, Expression right) {
+        Integer l = constant(left), r = constant(right);
+        if (l != null && r != null && !((operator == '/' || operator == '%') && r == 0)) {
+            return new ConstantExpression(apply(operator, l, r));
+        }
+        switch (operator) {
+            case '*':
+                if (r != null && r == 1) {
+                    return left;
+                }
+                if (l != null && l == 1) {
+                    return right;
+                }
+                if ((r != null && r == 0 && isPure(left)) || (l != null && l == 0 && isPure(right))) {
+                    return new ConstantExpression(0);
+                }
+                return new MultiplyOperationExpression(left, right);
+            case '/':
+                if (r != null && r == 1) {
+                    return left;
+                }
+                return new DivideOperationExpression(left, right);
+            case '%':
+                if (r != null && (r == 1 || r == -1) && isPure(left)) {
+                    return new ConstantExpression(0);
+                }
+                return new ModuloOperationExpression(left, right);
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operator);
+        }
+    }
+
+    // 展开连续的加减法，常量合并成一项，同一个变量一加一减时互相抵消
+    private static Expression sum(Expression expression) {
+        List<Expression> terms = new ArrayList<>();
+        List<Boolean> signs = new ArrayList<>();
+        int constant = collect(expression, false, terms, signs);
+        // collect从右往左收集，反转后和原来的顺序一致
+        Collections.reverse(terms);
+        Collections.reverse(signs);
+
+        // 变量出现的净次数，加为正，减为负
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        Map<String, Expression> variables = new HashMap<>();
+        List<Expression> others = new ArrayList<>();
+        List<Boolean> otherSigns = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            Expression term = terms.get(i);
+            if (term instanceof VariableExpression) {
+                String key = ((VariableExpression) term).getKey();
+                counts.merge(key, signs.get(i) ? -1 : 1, Integer::sum);
+                variables.putIfAbsent(key, term);
+            } else {
+                others.add(term);
+                otherSigns.add(signs.get(i));
+            }
+        }
+
+        List<Expression> positive = new ArrayList<>();
+        List<Expression> negative = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            int count = entry.getValue();
+            for (int i = 0; i < Math.abs(count); i++) {
+                (count > 0 ? positive : negative).add(variables.get(entry.getKey()));
+            }
+        }
+        for (int i = 0; i < others.size(); i++) {
+            (otherSigns.get(i) ? negative : positive).add(others.get(i));
+        }
+        if (constant != 0) {
+            positive.add(new ConstantExpression(constant));
+        }
+        return build(positive, negative);
+    }
+
+    // 把expression中的各项加入terms，返回常量项的和；negate为true时整棵子树取反
+    private static int collect(Expression expression, boolean negate, List<Expression> terms, List<Boolean> signs) {
+        int constant = 0;
+        Expression node = expression;
+        boolean sign = negate;
+        while (true) {
+            if (node instanceof SumExpression) {
+                SumExpression sum = (SumExpression) node;
+                for (int i = 0; i < sum.terms.length; i++) {
+                    constant += collect(sum.terms[i], sign != sum.negative[i], terms, signs);
+                }
+                return constant;
+            }
+            if (!(node instanceof AddOperationExpression || node instanceof SubtractOperationExpression)) {
+                return constant + term(optimize(node), sign, terms, signs);
+            }
+            OperationExpression operation = (OperationExpression) node;
+            boolean subtract = operation instanceof SubtractOperationExpression;
+            // 右子树一般很浅，递归处理；左子树是长链，循环处理
+            constant += collect(operation.right, sign != subtract, terms, signs);
+            node = operation.left;
+        }
+    }
+
+    private static int term(Expression term, boolean negative, List<Expression> terms, List<Boolean> signs) {
+        Integer value = constant(term);
+        if (value != null) {
+            return negative ? -value : value;
+        }
+        if (isAdditive(term)) {
+            return collect(term, negative, terms, signs);
+        }
+        terms.add(term);
+        signs.add(negative);
+        return 0;
+    }
+
+    private static Expression build(List<Expression> positive, List<Expression> negative) {
+        int size = positive.size() + negative.size();
+        if (size == 0) {
+            return new ConstantExpression(0);
+        }
+        if (size == 1) {
+            return positive.isEmpty()
+                    ? new SubtractOperationExpression(new ConstantExpression(0), negative.get(0))
+                    : positive.get(0);
+        }
+        if (size == 2 && !positive.isEmpty()) {
+            return negative.isEmpty()
+                    ? new AddOperationExpression(positive.get(0), positive.get(1))
+                    : new SubtractOperationExpression(positive.get(0), negative.get(0));
+        }
+        Expression[] terms = new Expression[size];
+        boolean[] signs = new boolean[size];
+        int i = 0;
+        for (Expression term : positive) {
+            terms[i++] = term;
+        }
+        for (Expression term : negative) {
+            signs[i] = true;
+            terms[i++] = term;
+        }
+        return new SumExpression(terms, signs);
+    }
+
+    private static Integer constant(Expression expression) {
+        return expression instanceof ConstantExpression ? ((ConstantExpression) expression).getValue() : null;
+    }
+
+    private static int apply(char operator, int left, int right) {
+        switch (operator) {
+            case '+':
+                return left + right;
+            case '-':
+                return left - right;
+            case '*':
+                return left * right;
+            case '/':
+                return left / right;
+            case '%':
+                return left % right;
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operator);
+        }
+    }
+
+    // 子树中没有除法和取模，计算时不会抛出异常
+    private static boolean isPure(Expression expression) {
+        ArrayDeque<Expression> stack = new ArrayDeque<>();
+        stack.push(expression);
+        while (!stack.isEmpty()) {
+            Expression node = stack.pop();
+            if (node instanceof DivideOperationExpression || node instanceof ModuloOperationExpression) {
+                return false;
+            }
+            if (node instanceof OperationExpression) {
+                stack.push(((OperationExpression) node).left);
+                stack.push(((OperationExpression) node).right);
+            } else if (node instanceof SumExpression) {
+                for (Expression term : ((SumExpression) node).terms) {
+                    stack.push(term);
+                }
+            }
+        }
+        return true;
+    }
+}
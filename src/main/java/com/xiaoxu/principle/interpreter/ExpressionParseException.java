@@ -0,0 +1,17 @@
+package com.xiaoxu.principle.interpreter;
+
+// 表达式语法错误，position是出错字符的下标
+public class ExpressionParseException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public ExpressionParseException(String message, int position) {
+        super(message + "（位置" + position + "）");
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,190 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+
+/**
+ * 优先级爬升法解析表达式，边扫描边构建表达式树，不单独生成token列表
+ * <p>
+ * 支持整数常量、多字符变量名、+ - * / %、一元负号和括号，
+ * 同级运算左结合，只有括号会增加递归深度
+ */
+public class ExpressionParser {
+    // 括号最大嵌套层数，避免恶意输入导致栈溢出
+    private static final int MAX_DEPTH = 1000;
+
+    private final String source;
+    private int position;
+    private int depth;
+    // 变量名到槽位的映射，解析时分配，同名变量共用一个槽位和同一个名称字符串
+    private final HashMap<String, Integer> slots = new HashMap<>();
+
+    public ExpressionParser(String source) {
+        this.source = source;
+    }
+
+    public Expression parse() {
+        Expression expression = parseBinary(0);
+        skipWhitespace();
+        if (position < source.length()) {
+            throw error("多余的字符'" + source.charAt(position) + "'");
+        }
+        return expression;
+    }
+
+    public HashMap<String, Integer> getSlots() {
+        return slots;
+    }
+
+    // 解析优先级不低于minPrecedence的二元运算
+    private Expression parseBinary(int minPrecedence) {
+        Expression left = parseUnary();
+        while (true) {
+            skipWhitespace();
+            if (position >= source.length()) {
+                return left;
+            }
+            char operator = source.charAt(position);
+            int precedence = precedence(operator);
+            if (precedence < minPrecedence) {
+                return left;
+            }
+            position++;
+            // 左结合：右边只接收更高优先级的运算
+            Expression right = parseBinary(precedence + 1);
+            left = create(operator, left, right);
+        }
+    }
+
+    private Expression parseUnary() {
+        skipWhitespace();
+        if (position < source.length() && source.charAt(position) == '-') {
+            int start = position++;
+            skipWhitespace();
+            if (position < source.length() && isDigit(source.charAt(position))) {
+                return new ConstantExpression(parseNumber(start, true));
+            }
+            enter(start);
+            Expression operand = parseUnary();
+            depth--;
+            return new SubtractOperationExpression(new ConstantExpression(0), operand);
+        }
+        return parsePrimary();
+    }
+
+    private Expression parsePrimary() {
+        if (position >= source.length()) {
+            throw error("表达式不完整");
+        }
+        char c = source.charAt(position);
+        if (isDigit(c)) {
+            return new ConstantExpression(parseNumber(position, false));
+        }
+        if (isIdentifierStart(c)) {
+            int start = position;
+            do {
+                position++;
+            } while (position < source.length() && isIdentifierPart(source.charAt(position)));
+            return variable(source.substring(start, position));
+        }
+        if (c == '(') {
+            int start = position++;
+            enter(start);
+            Expression expression = parseBinary(0);
+            depth--;
+            skipWhitespace();
+            if (position >= source.length() || source.charAt(position) != ')') {
+                throw new ExpressionParseException("括号没有闭合", start);
+            }
+            position++;
+            return expression;
+        }
+        throw error("不能识别的字符'" + c + "'");
+    }
+
+    private VariableExpression variable(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        VariableExpression variable = new VariableExpression(name);
+        variable.setSlot(slot);
+        return variable;
+    }
+
+    // start指向数字或者负号，negative为true时数字前已经读过负号
+    private int parseNumber(int start, boolean negative) {
+        long value = 0;
+        while (position < source.length() && isDigit(source.charAt(position))) {
+            value = value * 10 + (source.charAt(position++) - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new ExpressionParseException("整数超出范围", start);
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new ExpressionParseException("整数超出范围", start);
+        }
+        return (int) value;
+    }
+
+    private void enter(int start) {
+        if (++depth > MAX_DEPTH) {
+            throw new ExpressionParseException("嵌套层数超过" + MAX_DEPTH, start);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private ExpressionParseException error(String message) {
+        return new ExpressionParseException(message, position);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    // 非运算符返回-1，结束当前层的解析
+    private static int precedence(char operator) {
+        switch (operator) {
+            case '+':
+            case '-':
+                return 1;
+            case '*':
+            case '/':
+            case '%':
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    private static Expression create(char operator, Expression left, Expression right) {
+        switch (operator) {
+            case '+':
+                return new AddOperationExpression(left, right);
+            case '-':
+                return new SubtractOperationExpression(left, right);
+            case '*':
+                return new MultiplyOperationExpression(left, right);
+            case '/':
+                return new DivideOperationExpression(left, right);
+            default:
+                return new ModuloOperationExpression(left, right);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 增量计算：记住每个节点上一次的值，修改变量后只重新计算受影响的节点
+ * <p>
+ * 节点按子节点在前、父节点在后的顺序编号，修改后的节点放进按编号排序的堆里，
+ * 每个节点最多重新计算一次；加减法节点直接加上子节点的变化量，不用重新累加所有项。
+ * set只记录变化，value时才计算，连续修改多个变量时受影响的节点也只算一次
+ */
+public class IncrementalSession {
+    private static final int VAR = 0, CONST = 1, ADD = 2, SUB = 3, MUL = 4, DIV = 5, MOD = 6, SUM = 7;
+
+    private final Map<String, Integer> slots;
+    private final int[] kind;
+    private final int[][] children;
+    private final boolean[][] negative;
+    // 父节点，以及父节点是SumExpression时这一项的符号
+    private final int[][] parents;
+    private final int[][] parentSigns;
+    // 每个变量对应的叶子节点
+    private final int[][] variableNodes;
+    private final int root;
+
+    private final int[] value;
+    private final int[] oldValue;
+    private final boolean[] queued;
+    private final int[] heap;
+    private int heapSize;
+    // 计算时抛出了异常，下次需要全部重新计算
+    private boolean broken;
+
+    public IncrementalSession(Expression expression, Map<String, Integer> slots, int[] values) {
+        this.slots = slots;
+        List<Expression> nodes = new ArrayList<>();
+        Map<Expression, Integer> ids = new IdentityHashMap<>();
+        number(expression, nodes, ids);
+
+        int size = nodes.size();
+        kind = new int[size];
+        children = new int[size][];
+        negative = new boolean[size][];
+        List<List<int[]>> parentEdges = new ArrayList<>();
+        List<List<Integer>> leaves = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            leaves.add(new ArrayList<>());
+        }
+        value = new int[size];
+        for (int id = 0; id < size; id++) {
+            parentEdges.add(new ArrayList<>());
+            Expression node = nodes.get(id);
+            Expression[] childNodes = childrenOf(node);
+            kind[id] = kindOf(node);
+            children[id] = new int[childNodes.length];
+            for (int i = 0; i < childNodes.length; i++) {
+                children[id][i] = ids.get(unwrap(childNodes[i]));
+            }
+            if (node instanceof SumExpression) {
+                negative[id] = ((SumExpression) node).negative;
+            }
+            if (node instanceof VariableExpression) {
+                int slot = ((VariableExpression) node).getSlot();
+                leaves.get(slot).add(id);
+                value[id] = values[slot];
+            } else if (node instanceof ConstantExpression) {
+                value[id] = ((ConstantExpression) node).getValue();
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            for (int i = 0; i < children[id].length; i++) {
+                int sign = kind[id] == SUM ? (negative[id][i] ? -1 : 1) : 0;
+                parentEdges.get(children[id][i]).add(new int[]{id, sign});
+            }
+        }
+        parents = new int[size][];
+        parentSigns = new int[size][];
+        for (int id = 0; id < size; id++) {
+            List<int[]> edges = parentEdges.get(id);
+            parents[id] = new int[edges.size()];
+            parentSigns[id] = new int[edges.size()];
+            for (int i = 0; i < edges.size(); i++) {
+                parents[id][i] = edges.get(i)[0];
+                parentSigns[id][i] = edges.get(i)[1];
+            }
+        }
+        variableNodes = new int[slots.size()][];
+        for (int slot = 0; slot < variableNodes.length; slot++) {
+            variableNodes[slot] = leaves.get(slot).stream().mapToInt(Integer::intValue).toArray();
+        }
+        root = ids.get(unwrap(expression));
+        oldValue = new int[size];
+        queued = new boolean[size];
+        heap = new int[size];
+        broken = true;
+    }
+
+    public void set(String name, int newValue) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("表达式中没有变量：" + name);
+        }
+        set(slot, newValue);
+    }
+
+    public void set(int slot, int newValue) {
+        for (int id : variableNodes[slot]) {
+            int old = value[id];
+            if (old != newValue) {
+                value[id] = newValue;
+                if (!broken) {
+                    changed(id, old);
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws ArithmeticException 除数为0
+     */
+    public int value() {
+        try {
+            if (broken) {
+                recomputeAll();
+                broken = false;
+            } else {
+                drain();
+            }
+        } catch (ArithmeticException e) {
+            heapSize = 0;
+            Arrays.fill(queued, false);
+            broken = true;
+            throw e;
+        }
+        return value[root];
+    }
+
+    private void drain() {
+        while (heapSize > 0) {
+            int id = poll();
+            queued[id] = false;
+            if (kind[id] != SUM) {
+                value[id] = compute(id);
+            }
+            if (value[id] != oldValue[id]) {
+                changed(id, oldValue[id]);
+            }
+        }
+    }
+
+    // 节点的值从old变成当前的值，通知它的父节点
+    private void changed(int id, int old) {
+        int delta = value[id] - old;
+        int[] ps = parents[id];
+        for (int i = 0; i < ps.length; i++) {
+            int parent = ps[i];
+            if (!queued[parent]) {
+                queued[parent] = true;
+                oldValue[parent] = value[parent];
+                offer(parent);
+            }
+            if (kind[parent] == SUM) {
+                value[parent] += parentSigns[id][i] * delta;
+            }
+        }
+    }
+
+    private void recomputeAll() {
+        for (int id = 0; id < kind.length; id++) {
+            if (kind[id] != VAR && kind[id] != CONST) {
+                value[id] = compute(id);
+            }
+        }
+    }
+
+    private int compute(int id) {
+        int[] c = children[id];
+        switch (kind[id]) {
+            case VAR:
+            case CONST:
+                return value[id];
+            case ADD:
+                return value[c[0]] + value[c[1]];
+            case SUB:
+                return value[c[0]] - value[c[1]];
+            case MUL:
+                return value[c[0]] * value[c[1]];
+            case DIV:
+                return value[c[0]] / value[c[1]];
+            case MOD:
+                return value[c[0]] % value[c[1]];
+            default:
+                int sum = 0;
+                for (int i = 0; i < c.length; i++) {
+                    sum = negative[id][i] ? sum - value[c[i]] : sum + value[c[i]];
+                }
+                return sum;
+        }
+    }
+
+    private void offer(int id) {
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= id) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = id;
+    }
+
+    private int poll() {
+        int result = heap[0];
+        int last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return result;
+    }
+
+    // 后序遍历编号，子节点的编号总是小于父节点；公共子表达式只编号一次
+    private static void number(Expression root, List<Expression> nodes, Map<Expression, Integer> ids) {
+        ArrayDeque<Expression> stack = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        stack.push(unwrap(root));
+        expanded.push(false);
+        while (!stack.isEmpty()) {
+            Expression node = stack.pop();
+            boolean done = expanded.pop();
+            if (ids.containsKey(node)) {
+                continue;
+            }
+            if (done) {
+                ids.put(node, nodes.size());
+                nodes.add(node);
+                continue;
+            }
+            stack.push(node);
+            expanded.push(true);
+            for (Expression child : childrenOf(node)) {
+                stack.push(unwrap(child));
+                expanded.push(false);
+            }
+        }
+    }
+
+    private static Expression unwrap(Expression node) {
+        return node instanceof SharedExpression ? ((SharedExpression) node).definition : node;
+    }
+
+    private static Expression[] childrenOf(Expression node) {
+        if (node instanceof OperationExpression) {
+            return new Expression[]{((OperationExpression) node).left, ((OperationExpression) node).right};
+        }
+        if (node instanceof SumExpression) {
+            return ((SumExpression) node).terms;
+        }
+        return new Expression[0];
+    }
+
+    private static int kindOf(Expression node) {
+        if (node instanceof VariableExpression) {
+            return VAR;
+        }
+        if (node instanceof ConstantExpression) {
+            return CONST;
+        }
+        if (node instanceof SumExpression) {
+            return SUM;
+        }
+        switch (((OperationExpression) node).getOperator()) {
+            case '+':
+                return ADD;
+            case '-':
+                return SUB;
+            case '*':
+                return MUL;
+            case '/':
+                return DIV;
+            case '%':
+                return MOD;
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + ((OperationExpression) node).getOperator());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+
+public class ModuloOperationExpression extends OperationExpression {
+    public ModuloOperationExpression(Expression left, Expression right) {
+        super(left, right);
+    }
+
+    @Override
+    public int interpret(HashMap<String, Integer> var) {
+        return left.interpret(var) % right.interpret(var);
+    }
+
+    @Override
+    public int interpret(int[] values) {
+        return left.interpret(values) % right.interpret(values);
+    }
+
+    @Override
+    public char getOperator() {
+        return '%';
+    }
+}
@@ -7,4 +7,7 @@ public abstract class OperationExpression extends Expression {
         this.left = left;
         this.right = right;
     }
+
+    // 运算符，供编译器等不遍历树的执行方式使用
+    public abstract char getOperator();
 }
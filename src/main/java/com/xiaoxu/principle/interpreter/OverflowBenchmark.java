@@ -0,0 +1,66 @@
+package com.xiaoxu.principle.interpreter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+// 各种溢出处理方式的开销，exact在不溢出时应该接近long
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverflowBenchmark {
+    private Calculator calculator;
+    private int[] intValues;
+    private long[] longValues;
+    private long[] overflowValues;
+
+    @Setup
+    public void setup() {
+        calculator = new Calculator("price*count+fee*count-discount+tax*rate/100");
+        intValues = new int[calculator.getVariables().length];
+        longValues = new long[intValues.length];
+        overflowValues = new long[intValues.length];
+        for (int i = 0; i < intValues.length; i++) {
+            intValues[i] = 1000 + i * 37;
+            longValues[i] = intValues[i];
+            overflowValues[i] = Long.MAX_VALUE / 3;
+        }
+    }
+
+    @Benchmark
+    public int wrappingInt() {
+        return calculator.run(intValues);
+    }
+
+    @Benchmark
+    public int checkedInt() {
+        return calculator.runChecked(intValues);
+    }
+
+    @Benchmark
+    public long wrappingLong() {
+        return calculator.runLong(longValues);
+    }
+
+    @Benchmark
+    public BigInteger exact() {
+        return calculator.runExact(longValues);
+    }
+
+    // 溢出后改用BigInteger的慢路径
+    @Benchmark
+    public BigInteger exactOverflow() {
+        return calculator.runExact(overflowValues);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OverflowBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,220 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * 检查溢出处理方式的结果：用BigInteger直接按书写的顺序计算表达式文本作为参照，
+ * 和Calculator的runExact、runChecked、runLong逐一比较，不一致时抛出IllegalStateException
+ * <p>
+ * 参照的计算不经过ExpressionParser、优化和公共子表达式合并
+ */
+public class OverflowCheck {
+    private static final BigInteger INT_MIN = BigInteger.valueOf(Integer.MIN_VALUE);
+    private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    public static void main(String[] args) {
+        // 常量折叠、调整顺序和抵消变量都会改变这些表达式的结果
+        check("a + 2000000000 + 2000000000", 0);
+        check("a - b + c", Integer.MAX_VALUE, 1, 1);
+        check("a + b - b", Integer.MAX_VALUE, 1);
+        check("a * 65536 * 65536 / 65536", 3);
+        check("-a - 1", Integer.MAX_VALUE);
+        check("a / b", Integer.MIN_VALUE, -1);
+        // 很深的表达式树使用后缀指令计算
+        StringBuilder deep = new StringBuilder("a");
+        for (int i = 0; i < 50000; i++) {
+            deep.append("*b");
+        }
+        check(deep.toString(), 5, 1);
+        check(deep.toString(), 1, 2);
+
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            String source = generate(random, 1 + random.nextInt(6));
+            int variables = new Calculator(source).getVariables().length;
+            long[] values = new long[variables];
+            for (int j = 0; j < variables; j++) {
+                values[j] = random.nextBoolean() ? random.nextInt(7) - 3 : random.nextInt();
+            }
+            check(source, values);
+        }
+        System.out.println("检查通过：" + (count + 8) + "个表达式");
+    }
+
+    /**
+     * values按Calculator的槽位排列，也就是变量第一次出现的顺序
+     */
+    public static void check(String source, long... values) {
+        Calculator calculator = new Calculator(source);
+        String[] variables = calculator.getVariables();
+        BigInteger[] big = new BigInteger[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            big[i] = BigInteger.valueOf(values[i]);
+        }
+        Reference reference = new Reference(source, variables, big);
+        BigInteger expected;
+        try {
+            expected = reference.evaluate();
+        } catch (ArithmeticException e) {
+            expected = null;
+        }
+
+        BigInteger exact;
+        try {
+            exact = calculator.runExact(values.clone());
+        } catch (ArithmeticException e) {
+            exact = null;
+        }
+        compare(source, "runExact", expected, exact);
+
+        boolean fitsInt = true;
+        for (long value : values) {
+            fitsInt &= value == (int) value;
+        }
+        if (fitsInt) {
+            int[] ints = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                ints[i] = (int) values[i];
+            }
+            BigInteger checked;
+            try {
+                checked = BigInteger.valueOf(calculator.runChecked(ints));
+            } catch (ArithmeticException e) {
+                checked = null;
+            }
+            compare(source, "runChecked", expected == null || reference.intOverflow ? null : expected, checked);
+        }
+
+        if (expected != null && !reference.longOverflow) {
+            compare(source, "runLong", expected, BigInteger.valueOf(calculator.runLong(values.clone())));
+        }
+    }
+
+    // null表示抛出了ArithmeticException
+    private static void compare(String source, String mode, BigInteger expected, BigInteger actual) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            throw new IllegalStateException(mode + "结果错误：" + source + "，应为" + (expected == null ? "ArithmeticException" : expected)
+                    + "，实际为" + (actual == null ? "ArithmeticException" : actual));
+        }
+    }
+
+    private static String generate(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    return String.valueOf(random.nextInt(5));
+                case 1:
+                    return String.valueOf(random.nextInt() & Integer.MAX_VALUE);
+                default:
+                    return "v" + random.nextInt(4);
+            }
+        }
+        String[] operators = {"+", "-", "*", "/", "%"};
+        String expression = generate(random, depth - 1) + operators[random.nextInt(operators.length)] + generate(random, depth - 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                return "(" + expression + ")";
+            case 1:
+                return "-(" + expression + ")";
+            default:
+                return expression;
+        }
+    }
+
+    // 直接在文本上递归下降计算，记录中间结果是否超出int和long的范围
+    private static class Reference {
+        private final String source;
+        private final String[] variables;
+        private final BigInteger[] values;
+        private int position;
+        boolean intOverflow, longOverflow;
+
+        Reference(String source, String[] variables, BigInteger[] values) {
+            this.source = source.replace(" ", "");
+            this.variables = variables;
+            this.values = values;
+        }
+
+        BigInteger evaluate() {
+            return sum();
+        }
+
+        private BigInteger sum() {
+            BigInteger result = product();
+            while (position < source.length() && (peek() == '+' || peek() == '-')) {
+                char operator = source.charAt(position++);
+                BigInteger right = product();
+                result = record(operator == '+' ? result.add(right) : result.subtract(right));
+            }
+            return result;
+        }
+
+        private BigInteger product() {
+            BigInteger result = unary();
+            while (position < source.length() && (peek() == '*' || peek() == '/' || peek() == '%')) {
+                char operator = source.charAt(position++);
+                BigInteger right = unary();
+                if (operator == '*') {
+                    result = record(result.multiply(right));
+                } else if (operator == '/') {
+                    result = record(result.divide(right));
+                } else {
+                    result = record(result.remainder(right));
+                }
+            }
+            return result;
+        }
+
+        private BigInteger unary() {
+            if (peek() == '-') {
+                position++;
+                if (Character.isDigit(peek())) {
+                    return number().negate();
+                }
+                return record(BigInteger.ZERO.subtract(unary()));
+            }
+            if (peek() == '(') {
+                position++;
+                BigInteger result = sum();
+                position++;
+                return result;
+            }
+            if (Character.isDigit(peek())) {
+                return number();
+            }
+            int start = position;
+            while (position < source.length() && (Character.isLetterOrDigit(peek()) || peek() == '_')) {
+                position++;
+            }
+            String name = source.substring(start, position);
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            throw new IllegalStateException("未知的变量：" + name);
+        }
+
+        private BigInteger number() {
+            int start = position;
+            while (position < source.length() && Character.isDigit(peek())) {
+                position++;
+            }
+            return new BigInteger(source.substring(start, position));
+        }
+
+        private BigInteger record(BigInteger value) {
+            intOverflow |= value.compareTo(INT_MIN) < 0 || value.compareTo(INT_MAX) > 0;
+            longOverflow |= value.compareTo(LONG_MIN) < 0 || value.compareTo(LONG_MAX) > 0;
+            return value;
+        }
+
+        private char peek() {
+            return position < source.length() ? source.charAt(position) : '\0';
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.math.BigInteger;
+
+/**
+ * 不同溢出处理方式的计算：
+ * checkedInt用int计算，溢出时抛出ArithmeticException；
+ * longValue用long计算，溢出后回绕；
+ * exactLong用long计算，溢出时抛出ArithmeticException；
+ * big用BigInteger计算，不会溢出
+ * <p>
+ * SharedExpression的值需要调用方事先放到values对应的槽位中
+ */
+public class OverflowEvaluator {
+
+    public static int checkedInt(Expression expression, int[] values) {
+        if (expression instanceof VariableExpression) {
+            return values[((VariableExpression) expression).getSlot()];
+        }
+        if (expression instanceof SharedExpression) {
+            return values[((SharedExpression) expression).getSlot()];
+        }
+        if (expression instanceof ConstantExpression) {
+            return ((ConstantExpression) expression).getValue();
+        }
+        if (expression instanceof SumExpression) {
+            SumExpression sum = (SumExpression) expression;
+            int result = 0;
+            for (int i = 0; i < sum.terms.length; i++) {
+                int value = checkedInt(sum.terms[i], values);
+                result = sum.negative[i] ? Math.subtractExact(result, value) : Math.addExact(result, value);
+            }
+            return result;
+        }
+        OperationExpression operation = (OperationExpression) expression;
+        int left = checkedInt(operation.left, values), right = checkedInt(operation.right, values);
+        switch (operation.getOperator()) {
+            case '+':
+                return Math.addExact(left, right);
+            case '-':
+                return Math.subtractExact(left, right);
+            case '*':
+                return Math.multiplyExact(left, right);
+            case '/':
+                if (left == Integer.MIN_VALUE && right == -1) {
+                    throw new ArithmeticException("integer overflow");
+                }
+                return left / right;
+            case '%':
+                return left % right;
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operation.getOperator());
+        }
+    }
+
+    public static long longValue(Expression expression, long[] values) {
+        if (expression instanceof VariableExpression) {
+            return values[((VariableExpression) expression).getSlot()];
+        }
+        if (expression instanceof SharedExpression) {
+            return values[((SharedExpression) expression).getSlot()];
+        }
+        if (expression instanceof ConstantExpression) {
+            return ((ConstantExpression) expression).getValue();
+        }
+        if (expression instanceof SumExpression) {
+            SumExpression sum = (SumExpression) expression;
+            long result = 0;
+            for (int i = 0; i < sum.terms.length; i++) {
+                long value = longValue(sum.terms[i], values);
+                result = sum.negative[i] ? result - value : result + value;
+            }
+            return result;
+        }
+        OperationExpression operation = (OperationExpression) expression;
+        long left = longValue(operation.left, values), right = longValue(operation.right, values);
+        switch (operation.getOperator()) {
+            case '+':
+                return left + right;
+            case '-':
+                return left - right;
+            case '*':
+                return left * right;
+            case '/':
+                return left / right;
+            case '%':
+                return left % right;
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operation.getOperator());
+        }
+    }
+
+    public static long exactLong(Expression expression, long[] values) {
+        if (expression instanceof VariableExpression) {
+            return values[((VariableExpression) expression).getSlot()];
+        }
+        if (expression instanceof SharedExpression) {
+            return values[((SharedExpression) expression).getSlot()];
+        }
+        if (expression instanceof ConstantExpression) {
+            return ((ConstantExpression) expression).getValue();
+        }
+        if (expression instanceof SumExpression) {
+            SumExpression sum = (SumExpression) expression;
+            long result = 0;
+            for (int i = 0; i < sum.terms.length; i++) {
+                long value = exactLong(sum.terms[i], values);
+                result = sum.negative[i] ? Math.subtractExact(result, value) : Math.addExact(result, value);
+            }
+            return result;
+        }
+        OperationExpression operation = (OperationExpression) expression;
+        long left = exactLong(operation.left, values), right = exactLong(operation.right, values);
+        switch (operation.getOperator()) {
+            case '+':
+                return Math.addExact(left, right);
+            case '-':
+                return Math.subtractExact(left, right);
+            case '*':
+                return Math.multiplyExact(left, right);
+            case '/':
+                if (left == Long.MIN_VALUE && right == -1) {
+                    throw new ArithmeticException("long overflow");
+                }
+                return left / right;
+            case '%':
+                return left % right;
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operation.getOperator());
+        }
+    }
+
+    // BigInteger的除法和取余与long一样向零取整
+    public static BigInteger big(Expression expression, BigInteger[] values) {
+        if (expression instanceof VariableExpression) {
+            return values[((VariableExpression) expression).getSlot()];
+        }
+        if (expression instanceof SharedExpression) {
+            return values[((SharedExpression) expression).getSlot()];
+        }
+        if (expression instanceof ConstantExpression) {
+            return BigInteger.valueOf(((ConstantExpression) expression).getValue());
+        }
+        if (expression instanceof SumExpression) {
+            SumExpression sum = (SumExpression) expression;
+            BigInteger result = BigInteger.ZERO;
+            for (int i = 0; i < sum.terms.length; i++) {
+                BigInteger value = big(sum.terms[i], values);
+                result = sum.negative[i] ? result.subtract(value) : result.add(value);
+            }
+            return result;
+        }
+        OperationExpression operation = (OperationExpression) expression;
+        BigInteger left = big(operation.left, values), right = big(operation.right, values);
+        switch (operation.getOperator()) {
+            case '+':
+                return left.add(right);
+            case '-':
+                return left.subtract(right);
+            case '*':
+                return left.multiply(right);
+            case '/':
+                return left.divide(right);
+            case '%':
+                return left.remainder(right);
+            default:
+                throw new IllegalArgumentException("不支持的运算符：" + operation.getOperator());
+        }
+    }
+}
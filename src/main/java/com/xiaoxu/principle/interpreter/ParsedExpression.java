@@ -0,0 +1,86 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 解析结果：表达式和变量槽位，创建后不再修改，可以被多个Calculator共用
+ * <p>
+ * expression经过了优化，只在int回绕的运算中与原表达式等价；
+ * long、溢出检查和精确计算使用exact，它保持书写的顺序，没有折叠常量，只合并了公共子表达式
+ */
+public class ParsedExpression {
+    public final Expression expression;
+    // 不可修改，共用这个解析结果的Calculator都按它查找槽位
+    public final Map<String, Integer> slots;
+    public final String[] variables;
+    // 公共子表达式，槽位排在变量后面，没有时为空数组
+    public final SharedExpression[] shared;
+    // 后缀指令形式，表达式树太深不能递归计算时使用
+    public final PostfixProgram program;
+    // expression合并公共子表达式前后的节点个数，没有合并时相同
+    public final int nodesBefore, nodesAfter;
+
+    // 没有经过优化的表达式，以及它的公共子表达式和后缀指令
+    public final Expression exact;
+    public final SharedExpression[] exactShared;
+    public final PostfixProgram exactProgram;
+
+    // 不做公共子表达式消除，expression同时用于int和long等计算，需要是没有优化过的
+    public ParsedExpression(Expression expression, Map<String, Integer> slots) {
+        this(expression, new SharedExpression[0], expression, new SharedExpression[0], slots,
+                ExpressionDag.countNodes(expression), ExpressionDag.countNodes(expression));
+    }
+
+    public ParsedExpression(ExpressionDag dag, Map<String, Integer> slots) {
+        this(dag.expression, dag.shared, dag.expression, dag.shared, slots, dag.nodesBefore, dag.nodesAfter);
+    }
+
+    // optimized用于int计算，exact用于其他计算
+    public ParsedExpression(ExpressionDag optimized, ExpressionDag exact, Map<String, Integer> slots) {
+        this(optimized.expression, optimized.shared, exact.expression, exact.shared, slots,
+                optimized.nodesBefore, optimized.nodesAfter);
+    }
+
+    private ParsedExpression(Expression expression, SharedExpression[] shared,
+                             Expression exact, SharedExpression[] exactShared, Map<String, Integer> slots,
+                             int nodesBefore, int nodesAfter) {
+        this.expression = expression;
+        this.nodesBefore = nodesBefore;
+        this.nodesAfter = nodesAfter;
+        this.slots = Map.copyOf(slots);
+        this.shared = shared;
+        this.program = PostfixProgram.compile(expression, shared);
+        this.exact = exact;
+        this.exactShared = exactShared;
+        this.exactProgram = exact == expression ? program : PostfixProgram.compile(exact, exactShared);
+        this.variables = new String[slots.size()];
+        slots.forEach((name, slot) -> variables[slot] = name);
+    }
+
+    // 计算时需要的槽位个数，包括变量和公共子表达式
+    public int slotCount() {
+        return variables.length + shared.length;
+    }
+
+    // 使用exact计算时需要的槽位个数
+    public int exactSlotCount() {
+        return variables.length + exactShared.length;
+    }
+
+    /**
+     * 解析表达式，优化后再合并公共子表达式；没有优化的表达式也合并公共子表达式，
+     * 合并不改变运算的顺序，在任何运算方式下结果都相同
+     *
+     * @throws ExpressionParseException 表达式有语法错误
+     */
+    public static ParsedExpression parse(String source) {
+        ExpressionParser parser = new ExpressionParser(source);
+        Expression parsed = parser.parse();
+        HashMap<String, Integer> slots = parser.getSlots();
+        // 优化和合并都不修改原来的树，parsed可以再用一次
+        ExpressionDag exact = ExpressionDag.build(parsed, slots.size());
+        ExpressionDag optimized = ExpressionDag.build(ExpressionOptimizer.optimize(parsed), slots.size());
+        return new ParsedExpression(optimized, exact, slots);
+    }
+}
@@ -0,0 +1,352 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * 把表达式编译成后缀指令序列，用一个int数组做操作数栈循环执行，
+ * 执行时没有递归，表达式树再深也不会栈溢出
+ * <p>
+ * 先计算公共子表达式并存入它们的槽位，再计算整个表达式，
+ * 所以values的长度要包含公共子表达式的槽位
+ */
+public class PostfixProgram {
+    // LOAD、CONST、STORE后面跟一个操作数，其余指令没有操作数
+    private static final int LOAD = 0, CONST = 1, STORE = 2, ADD = 3, SUB = 4, MUL = 5, DIV = 6, MOD = 7, NEG = 8;
+
+    private final int[] code;
+    private final int maxStack;
+    // 表达式树的最大深度，递归计算时的调用层数
+    private final int depth;
+
+    private PostfixProgram(int[] code, int maxStack, int depth) {
+        this.code = code;
+        this.maxStack = maxStack;
+        this.depth = depth;
+    }
+
+    public static PostfixProgram compile(Expression expression, SharedExpression[] shared) {
+        Emitter emitter = new Emitter();
+        for (SharedExpression node : shared) {
+            emitter.emit(node.definition);
+            emitter.add(STORE, node.getSlot());
+        }
+        emitter.emit(expression);
+        return new PostfixProgram(Arrays.copyOf(emitter.code, emitter.length), emitter.maxStack, emitter.depth);
+    }
+
+    public int run(int[] values) {
+        return run(values, new int[maxStack]);
+    }
+
+    // stack的长度不小于getMaxStack()，可以重复使用
+    public int run(int[] values, int[] stack) {
+        int[] code = this.code;
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case LOAD:
+                    stack[++top] = values[code[++pc]];
+                    break;
+                case CONST:
+                    stack[++top] = code[++pc];
+                    break;
+                case STORE:
+                    values[code[++pc]] = stack[top--];
+                    break;
+                case ADD:
+                    stack[top - 1] += stack[top--];
+                    break;
+                case SUB:
+                    stack[top - 1] -= stack[top--];
+                    break;
+                case MUL:
+                    stack[top - 1] *= stack[top--];
+                    break;
+                case DIV:
+                    stack[top - 1] /= stack[top--];
+                    break;
+                case MOD:
+                    stack[top - 1] %= stack[top--];
+                    break;
+                case NEG:
+                    stack[top] = -stack[top];
+                    break;
+                default:
+                    throw new IllegalStateException("错误的指令：" + code[pc]);
+            }
+        }
+        return stack[top];
+    }
+
+    // 用long计算，溢出后回绕
+    public long runLong(long[] values) {
+        int[] code = this.code;
+        long[] stack = new long[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case LOAD:
+                    stack[++top] = values[code[++pc]];
+                    break;
+                case CONST:
+                    stack[++top] = code[++pc];
+                    break;
+                case STORE:
+                    values[code[++pc]] = stack[top--];
+                    break;
+                case ADD:
+                    stack[top - 1] += stack[top--];
+                    break;
+                case SUB:
+                    stack[top - 1] -= stack[top--];
+                    break;
+                case MUL:
+                    stack[top - 1] *= stack[top--];
+                    break;
+                case DIV:
+                    stack[top - 1] /= stack[top--];
+                    break;
+                case MOD:
+                    stack[top - 1] %= stack[top--];
+                    break;
+                case NEG:
+                    stack[top] = -stack[top];
+                    break;
+                default:
+                    throw new IllegalStateException("错误的指令：" + code[pc]);
+            }
+        }
+        return stack[top];
+    }
+
+    // 用int计算，溢出时抛出ArithmeticException
+    public int runChecked(int[] values) {
+        int[] code = this.code;
+        int[] stack = new int[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case LOAD:
+                    stack[++top] = values[code[++pc]];
+                    break;
+                case CONST:
+                    stack[++top] = code[++pc];
+                    break;
+                case STORE:
+                    values[code[++pc]] = stack[top--];
+                    break;
+                case ADD:
+                    stack[top - 1] = Math.addExact(stack[top - 1], stack[top--]);
+                    break;
+                case SUB:
+                    stack[top - 1] = Math.subtractExact(stack[top - 1], stack[top--]);
+                    break;
+                case MUL:
+                    stack[top - 1] = Math.multiplyExact(stack[top - 1], stack[top--]);
+                    break;
+                case DIV:
+                    if (stack[top - 1] == Integer.MIN_VALUE && stack[top] == -1) {
+                        throw new ArithmeticException("integer overflow");
+                    }
+                    stack[top - 1] /= stack[top--];
+                    break;
+                case MOD:
+                    stack[top - 1] %= stack[top--];
+                    break;
+                case NEG:
+                    stack[top] = Math.negateExact(stack[top]);
+                    break;
+                default:
+                    throw new IllegalStateException("错误的指令：" + code[pc]);
+            }
+        }
+        return stack[top];
+    }
+
+    // 用long计算，溢出时抛出ArithmeticException
+    public long runExact(long[] values) {
+        int[] code = this.code;
+        long[] stack = new long[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case LOAD:
+                    stack[++top] = values[code[++pc]];
+                    break;
+                case CONST:
+                    stack[++top] = code[++pc];
+                    break;
+                case STORE:
+                    values[code[++pc]] = stack[top--];
+                    break;
+                case ADD:
+                    stack[top - 1] = Math.addExact(stack[top - 1], stack[top--]);
+                    break;
+                case SUB:
+                    stack[top - 1] = Math.subtractExact(stack[top - 1], stack[top--]);
+                    break;
+                case MUL:
+                    stack[top - 1] = Math.multiplyExact(stack[top - 1], stack[top--]);
+                    break;
+                case DIV:
+                    if (stack[top - 1] == Long.MIN_VALUE && stack[top] == -1) {
+                        throw new ArithmeticException("long overflow");
+                    }
+                    stack[top - 1] /= stack[top--];
+                    break;
+                case MOD:
+                    stack[top - 1] %= stack[top--];
+                    break;
+                case NEG:
+                    stack[top] = Math.negateExact(stack[top]);
+                    break;
+                default:
+                    throw new IllegalStateException("错误的指令：" + code[pc]);
+            }
+        }
+        return stack[top];
+    }
+
+    // 用BigInteger计算，不会溢出；除法和取余与long一样向零取整
+    public BigInteger runBig(BigInteger[] values) {
+        int[] code = this.code;
+        BigInteger[] stack = new BigInteger[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case LOAD:
+                    stack[++top] = values[code[++pc]];
+                    break;
+                case CONST:
+                    stack[++top] = BigInteger.valueOf(code[++pc]);
+                    break;
+                case STORE:
+                    values[code[++pc]] = stack[top--];
+                    break;
+                case ADD:
+                    stack[top - 1] = stack[top - 1].add(stack[top--]);
+                    break;
+                case SUB:
+                    stack[top - 1] = stack[top - 1].subtract(stack[top--]);
+                    break;
+                case MUL:
+                    stack[top - 1] = stack[top - 1].multiply(stack[top--]);
+                    break;
+                case DIV:
+                    stack[top - 1] = stack[top - 1].divide(stack[top--]);
+                    break;
+                case MOD:
+                    stack[top - 1] = stack[top - 1].remainder(stack[top--]);
+                    break;
+                case NEG:
+                    stack[top] = stack[top].negate();
+                    break;
+                default:
+                    throw new IllegalStateException("错误的指令：" + code[pc]);
+            }
+        }
+        return stack[top];
+    }
+
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // 用显式的栈做后序遍历生成指令
+    private static class Emitter {
+        private int[] code = new int[64];
+        private int length;
+        private int stack, maxStack, depth;
+
+        void emit(Expression root) {
+            // 待处理的任务：Expression表示要展开的节点，Integer表示要输出的指令
+            ArrayDeque<Object> tasks = new ArrayDeque<>();
+            ArrayDeque<Integer> depths = new ArrayDeque<>();
+            tasks.push(root);
+            depths.push(1);
+            while (!tasks.isEmpty()) {
+                Object task = tasks.pop();
+                int level = depths.pop();
+                if (task instanceof Integer) {
+                    add((Integer) task, 0);
+                    continue;
+                }
+                depth = Math.max(depth, level);
+                Expression node = (Expression) task;
+                if (node instanceof VariableExpression) {
+                    add(LOAD, ((VariableExpression) node).getSlot());
+                } else if (node instanceof SharedExpression) {
+                    add(LOAD, ((SharedExpression) node).getSlot());
+                } else if (node instanceof ConstantExpression) {
+                    add(CONST, ((ConstantExpression) node).getValue());
+                } else if (node instanceof SumExpression) {
+                    // 按相反的顺序入栈：term0 [NEG] term1 ADD/SUB term2 ADD/SUB ...
+                    SumExpression sum = (SumExpression) node;
+                    for (int i = sum.terms.length - 1; i > 0; i--) {
+                        push(tasks, depths, sum.negative[i] ? SUB : ADD, level);
+                        push(tasks, depths, sum.terms[i], level + 1);
+                    }
+                    if (sum.negative[0]) {
+                        push(tasks, depths, NEG, level);
+                    }
+                    push(tasks, depths, sum.terms[0], level + 1);
+                } else {
+                    OperationExpression operation = (OperationExpression) node;
+                    push(tasks, depths, opcode(operation.getOperator()), level);
+                    push(tasks, depths, operation.right, level + 1);
+                    push(tasks, depths, operation.left, level + 1);
+                }
+            }
+        }
+
+        private static void push(ArrayDeque<Object> tasks, ArrayDeque<Integer> depths, Object task, int level) {
+            tasks.push(task);
+            depths.push(level);
+        }
+
+        void add(int opcode, int operand) {
+            if (length + 2 > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[length++] = opcode;
+            switch (opcode) {
+                case LOAD:
+                case CONST:
+                    code[length++] = operand;
+                    maxStack = Math.max(maxStack, ++stack);
+                    break;
+                case STORE:
+                    code[length++] = operand;
+                    stack--;
+                    break;
+                case NEG:
+                    break;
+                default:
+                    stack--;
+            }
+        }
+
+        private static int opcode(char operator) {
+            switch (operator) {
+                case '+':
+                    return ADD;
+                case '-':
+                    return SUB;
+                case '*':
+                    return MUL;
+                case '/':
+                    return DIV;
+                case '%':
+                    return MOD;
+                default:
+                    throw new IllegalArgumentException("不支持的运算符：" + operator);
+            }
+        }
+    }
+}
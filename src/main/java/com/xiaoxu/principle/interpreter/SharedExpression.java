@@ -0,0 +1,29 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+
+// 被多处引用的公共子表达式，每次计算时先算出definition放到slot，引用处直接读取
+public class SharedExpression extends Expression {
+    public final Expression definition;
+    private final int slot;
+
+    public SharedExpression(Expression definition, int slot) {
+        this.definition = definition;
+        this.slot = slot;
+    }
+
+    // 按名称取值时没有存放中间结果的位置，直接计算
+    @Override
+    public int interpret(HashMap<String, Integer> var) {
+        return definition.interpret(var);
+    }
+
+    @Override
+    public int interpret(int[] values) {
+        return values[slot];
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+}
@@ -11,4 +11,14 @@ public class SubtractOperationExpression extends OperationExpression{
     public int interpret(HashMap<String, Integer> var) {
         return left.interpret(var) - right.interpret(var);
     }
+
+    @Override
+    public int interpret(int[] values) {
+        return left.interpret(values) - right.interpret(values);
+    }
+
+    @Override
+    public char getOperator() {
+        return '-';
+    }
 }
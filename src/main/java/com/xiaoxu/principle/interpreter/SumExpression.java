@@ -0,0 +1,34 @@
+package com.xiaoxu.principle.interpreter;
+
+import java.util.HashMap;
+
+// 多项加减，由ExpressionOptimizer把连续的加减法展开得到，negative[i]为true时减去第i项
+public class SumExpression extends Expression {
+    public final Expression[] terms;
+    public final boolean[] negative;
+
+    public SumExpression(Expression[] terms, boolean[] negative) {
+        this.terms = terms;
+        this.negative = negative;
+    }
+
+    @Override
+    public int interpret(HashMap<String, Integer> var) {
+        int sum = 0;
+        for (int i = 0; i < terms.length; i++) {
+            int value = terms[i].interpret(var);
+            sum = negative[i] ? sum - value : sum + value;
+        }
+        return sum;
+    }
+
+    @Override
+    public int interpret(int[] values) {
+        int sum = 0;
+        for (int i = 0; i < terms.length; i++) {
+            int value = terms[i].interpret(values);
+            sum = negative[i] ? sum - value : sum + value;
+        }
+        return sum;
+    }
+}
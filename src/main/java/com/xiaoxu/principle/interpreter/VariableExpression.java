@@ -4,6 +4,8 @@ import java.util.HashMap;
 
 public class VariableExpression extends Expression {
     private String key;
+    // 变量在int[]中的下标，由Calculator解析时分配
+    private int slot;
 
     public VariableExpression(String key) {
         this.key = key;
@@ -13,4 +15,21 @@ public class VariableExpression extends Expression {
     public int interpret(HashMap<String, Integer> var) {
         return var.get(key);
     }
+
+    @Override
+    public int interpret(int[] values) {
+        return values[slot];
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
 }
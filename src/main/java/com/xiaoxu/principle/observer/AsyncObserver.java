@@ -0,0 +1,222 @@
+package com.xiaoxu.principle.observer;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步观察者，把通知放进自己的有界队列后立即返回，由executor中的任务依次交给被装饰的观察者
+ * <p>
+ * 同一个观察者同一时刻最多只有一个任务在处理队列，所以它收到通知的顺序和发出的顺序一致。
+ * 被装饰的观察者处理失败时交给FailureHandler，字符串通知的event参数为null。
+ * BLOCK策略下，被装饰的观察者在update中再发出通知、而自己的队列已满时不会等待，新的通知被丢弃
+ */
+public class AsyncObserver implements Observer {
+    private final Observer delegate;
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final FailureHandler failureHandler;
+
+    // 队列中是String或WeatherEvent
+    private final ArrayDeque<Object> queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    // 是否已经有任务在处理队列
+    private boolean draining;
+    // 正在处理队列的线程
+    private volatile Thread drainThread;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AsyncObserver(Observer delegate, Executor executor, int capacity, OverflowPolicy policy,
+                         FailureHandler failureHandler) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("队列容量必须大于0：" + capacity);
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.failureHandler = failureHandler;
+        this.queue = new ArrayDeque<>(capacity);
+    }
+
+    public AsyncObserver(Observer delegate, Executor executor, int capacity, OverflowPolicy policy) {
+        this(delegate, executor, capacity, policy, FailureHandler.PRINT);
+    }
+
+    @Override
+    public void update(String msg) {
+        enqueue(msg);
+    }
+
+    // 事件原样放进队列，被装饰的观察者仍然收到结构化的事件
+    @Override
+    public void update(WeatherEvent event) {
+        enqueue(event);
+    }
+
+    private void enqueue(Object msg) {
+        boolean schedule;
+        lock.lock();
+        try {
+            if (policy == OverflowPolicy.COALESCE) {
+                // 还没有交给观察者的通知都已经过时，只保留这一条
+                dropped.add(queue.size());
+                queue.clear();
+            } else if (queue.size() == capacity && !makeRoom()) {
+                dropped.increment();
+                return;
+            }
+            queue.addLast(msg);
+            schedule = !draining;
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        if (schedule) {
+            schedule();
+        }
+    }
+
+    // 调用前draining已经设为true
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // executor已经关闭或者饱和，队列中的通知无法投递，全部丢弃，之后的通知会重新提交任务
+            lock.lock();
+            try {
+                dropped.add(queue.size());
+                queue.clear();
+                draining = false;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // 队列满时按策略腾出位置，返回false表示丢弃新的通知
+    private boolean makeRoom() {
+        switch (policy) {
+            case BLOCK:
+                if (Thread.currentThread() == drainThread) {
+                    // 在自己的update中发出通知，等待的话队列永远不会被处理
+                    return false;
+                }
+                while (queue.size() == capacity) {
+                    notFull.awaitUninterruptibly();
+                }
+                return true;
+            case DROP_OLDEST:
+                queue.pollFirst();
+                dropped.increment();
+                return true;
+            case DROP_NEWEST:
+            default:
+                return false;
+        }
+    }
+
+    private void drain() {
+        boolean finished = false;
+        drainThread = Thread.currentThread();
+        try {
+            while (true) {
+                Object msg;
+                lock.lock();
+                try {
+                    msg = queue.pollFirst();
+                    if (msg == null) {
+                        draining = false;
+                        finished = true;
+                        return;
+                    }
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                // 一条通知处理失败不影响后面的通知
+                try {
+                    if (msg instanceof WeatherEvent) {
+                        delegate.update((WeatherEvent) msg);
+                    } else {
+                        delegate.update((String) msg);
+                    }
+                    delivered.increment();
+                } catch (RuntimeException | Error e) {
+                    failed.increment();
+                    failureHandler.failed(delegate, msg instanceof WeatherEvent ? (WeatherEvent) msg : null, e);
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                }
+            }
+        } finally {
+            drainThread = null;
+            if (!finished) {
+                // 观察者抛出了Error或者FailureHandler抛出了异常；队列中还有通知时重新提交任务，否则以后的通知永远不会被处理
+                boolean more;
+                lock.lock();
+                try {
+                    more = !queue.isEmpty();
+                    draining = more;
+                } finally {
+                    lock.unlock();
+                }
+                if (more) {
+                    schedule();
+                }
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    @Override
+    public int priority() {
+        return delegate.priority();
+    }
+
+    public Observer getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncObserver{" +
+                "delegate=" + delegate.getClass().getSimpleName() +
+                ", policy=" + policy +
+                ", queueDepth=" + getQueueDepth() +
+                ", delivered=" + getDelivered() +
+                ", dropped=" + getDropped() +
+                ", failed=" + getFailed() +
+                '}';
+    }
+}
@@ -0,0 +1,129 @@
+package com.xiaoxu.principle.observer;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并高频的天气变化，被装饰的观察者只收到最新的状态
+ * <p>
+ * 两次通知之间至少间隔minInterval，间隔内的变化只保留最后一个；
+ * 温度和上次通知的相比变化不超过temperatureThreshold时不通知，为0时不过滤
+ */
+public class ConflatingObserver implements Observer {
+    private final Observer delegate;
+    private final ScheduledExecutorService scheduler;
+    private final long minIntervalNanos;
+    private final int temperatureThreshold;
+
+    // 还没有交给观察者的最新通知，是String或WeatherEvent
+    private final AtomicReference<Object> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // 以下两个字段只在scheduler的任务中访问，同一时刻只有一个任务
+    private WeatherEvent lastDelivered;
+    private long lastDeliveryNanos;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+
+    public ConflatingObserver(Observer delegate, ScheduledExecutorService scheduler, long minInterval, TimeUnit unit, int temperatureThreshold) {
+        if (minInterval < 0 || temperatureThreshold < 0) {
+            throw new IllegalArgumentException("间隔和阈值不能为负数");
+        }
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.minIntervalNanos = unit.toNanos(minInterval);
+        this.temperatureThreshold = temperatureThreshold;
+        this.lastDeliveryNanos = System.nanoTime() - minIntervalNanos;
+    }
+
+    @Override
+    public void update(String msg) {
+        offer(msg);
+    }
+
+    @Override
+    public void update(WeatherEvent event) {
+        offer(event);
+    }
+
+    private void offer(Object msg) {
+        if (pending.getAndSet(msg) != null) {
+            conflated.increment();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            // 只在任务外读取，读到旧值最多让这次通知提前一点
+            long delay = lastDeliveryNanos + minIntervalNanos - System.nanoTime();
+            scheduler.schedule(this::flush, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        Object msg = pending.getAndSet(null);
+        try {
+            if (msg != null) {
+                // 被过滤掉也算一次，间隔内最多检查一次
+                lastDeliveryNanos = System.nanoTime();
+                deliver(msg);
+            }
+        } finally {
+            scheduled.set(false);
+            // 投递期间又有新的变化，等到下一个间隔再通知
+            if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+                scheduler.schedule(this::flush, minIntervalNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void deliver(Object msg) {
+        if (msg instanceof WeatherEvent) {
+            WeatherEvent event = (WeatherEvent) msg;
+            if (temperatureThreshold > 0 && lastDelivered != null
+                    && Math.abs((long) event.temperature - lastDelivered.temperature) <= temperatureThreshold) {
+                filtered.increment();
+                return;
+            }
+            lastDelivered = event;
+            delegate.update(event);
+        } else {
+            delegate.update((String) msg);
+        }
+        delivered.increment();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    // 被后来的变化覆盖掉的通知数
+    public long getConflated() {
+        return conflated.sum();
+    }
+
+    // 温度变化太小没有通知的次数
+    public long getFiltered() {
+        return filtered.sum();
+    }
+
+    @Override
+    public int priority() {
+        return delegate.priority();
+    }
+
+    public Observer getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "ConflatingObserver{" +
+                "delegate=" + delegate.getClass().getSimpleName() +
+                ", delivered=" + getDelivered() +
+                ", conflated=" + getConflated() +
+                ", filtered=" + getFiltered() +
+                '}';
+    }
+}
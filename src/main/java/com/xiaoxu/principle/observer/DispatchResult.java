@@ -0,0 +1,26 @@
+package com.xiaoxu.principle.observer;
+
+// 一次通知的结果：成功、抛出异常、超时、被跳过（上一次还没处理完，或者整次通知已经超时）的观察者数
+public class DispatchResult {
+    public final int delivered;
+    public final int failed;
+    public final int timedOut;
+    public final int skipped;
+
+    public DispatchResult(int delivered, int failed, int timedOut, int skipped) {
+        this.delivered = delivered;
+        this.failed = failed;
+        this.timedOut = timedOut;
+        this.skipped = skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchResult{" +
+                "delivered=" + delivered +
+                ", failed=" + failed +
+                ", timedOut=" + timedOut +
+                ", skipped=" + skipped +
+                '}';
+    }
+}
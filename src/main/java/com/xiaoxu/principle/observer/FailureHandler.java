@@ -0,0 +1,10 @@
+package com.xiaoxu.principle.observer;
+
+// 某个观察者处理通知失败、超时或者因为上一次还没处理完被跳过时调用
+@FunctionalInterface
+public interface FailureHandler {
+    void failed(Observer observer, WeatherEvent event, Throwable cause);
+
+    FailureHandler PRINT = (observer, event, cause) ->
+            System.err.println(observer.getClass().getSimpleName() + "处理" + event + "失败：" + cause);
+}
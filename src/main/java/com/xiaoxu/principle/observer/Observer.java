@@ -2,4 +2,14 @@ package com.xiaoxu.principle.observer;
 
 public interface Observer {
     void update(String msg);
+
+    // 需要结构化数据的观察者重写这个方法，默认转成字符串交给update(String)
+    default void update(WeatherEvent event) {
+        update(event.toString());
+    }
+
+    // 数值大的先收到通知，相同的按注册顺序；并行通知时同一优先级的观察者同时通知
+    default int priority() {
+        return 0;
+    }
 }
@@ -0,0 +1,69 @@
+package com.xiaoxu.principle.observer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 写时复制的观察者列表，注册和删除时复制出新的数组再用CAS替换
+ * <p>
+ * 通知时直接遍历拿到的数组快照，不加锁，遍历期间注册或删除观察者也不会抛出ConcurrentModificationException；
+ * 数组按priority从大到小排列，priority相同的按注册顺序
+ */
+public class ObserverRegistry {
+    private static final Observer[] EMPTY = new Observer[0];
+
+    private final AtomicReference<Observer[]> observers = new AtomicReference<>(EMPTY);
+
+    public void add(Observer observer) {
+        if (observer == null) {
+            throw new NullPointerException("observer");
+        }
+        int priority = observer.priority();
+        Observer[] current, next;
+        do {
+            current = observers.get();
+            // 插到最后一个priority不小于它的观察者后面
+            int index = current.length;
+            while (index > 0 && current[index - 1].priority() < priority) {
+                index--;
+            }
+            next = new Observer[current.length + 1];
+            System.arraycopy(current, 0, next, 0, index);
+            next[index] = observer;
+            System.arraycopy(current, index, next, index + 1, current.length - index);
+        } while (!observers.compareAndSet(current, next));
+    }
+
+    // 删除第一个equals的观察者，不存在时返回false
+    public boolean remove(Observer observer) {
+        Observer[] current, next;
+        do {
+            current = observers.get();
+            int index = indexOf(current, observer);
+            if (index < 0) {
+                return false;
+            }
+            next = current.length == 1 ? EMPTY : new Observer[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        } while (!observers.compareAndSet(current, next));
+        return true;
+    }
+
+    // 返回的数组不能修改
+    public Observer[] snapshot() {
+        return observers.get();
+    }
+
+    public int size() {
+        return observers.get().length;
+    }
+
+    private static int indexOf(Observer[] observers, Observer observer) {
+        for (int i = 0; i < observers.length; i++) {
+            if (observers[i].equals(observer)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,13 @@
+package com.xiaoxu.principle.observer;
+
+// 异步观察者的队列满了之后如何处理新的通知，COALESCE不论队列满没满都生效
+public enum OverflowPolicy {
+    // 通知的线程等待队列有空位
+    BLOCK,
+    // 丢弃队列中最早的通知
+    DROP_OLDEST,
+    // 丢弃新的通知
+    DROP_NEWEST,
+    // 新的通知到达时丢弃队列中所有还没有处理的通知，只保留最新的状态
+    COALESCE
+}
@@ -0,0 +1,103 @@
+package com.xiaoxu.principle.observer;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 在work-stealing的ForkJoinPool中并行通知观察者
+ * <p>
+ * 观察者按priority分组，一组全部完成或者超时之后才通知下一组；整次通知从开始起最多等待timeout。
+ * 超过timeout之后剩下的组不再提交，这些观察者算作跳过，不会被标记为正在处理。
+ * 超时的观察者继续在后台执行，在它完成之前的通知都会跳过它。失败、超时和跳过都交给FailureHandler
+ */
+public class ParallelDispatcher {
+    private final ForkJoinPool pool;
+    private final long timeoutNanos;
+    private final FailureHandler failureHandler;
+    // 正在处理通知的观察者
+    private final Set<Observer> busy = ConcurrentHashMap.newKeySet();
+
+    public ParallelDispatcher(ForkJoinPool pool, long timeout, TimeUnit unit, FailureHandler failureHandler) {
+        this.pool = pool;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.failureHandler = failureHandler;
+    }
+
+    public ParallelDispatcher(long timeout, TimeUnit unit) {
+        this(ForkJoinPool.commonPool(), timeout, unit, FailureHandler.PRINT);
+    }
+
+    // observers需要按priority从大到小排列，ObserverRegistry的快照就是这样
+    public DispatchResult dispatch(Observer[] observers, WeatherEvent event) {
+        int delivered = 0, failed = 0, timedOut = 0, skipped = 0;
+        // 用CompletableFuture拿到的是观察者抛出的原始异常
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[observers.length];
+        long deadline = System.nanoTime() + timeoutNanos;
+        int start = 0;
+        while (start < observers.length) {
+            if (deadline - System.nanoTime() <= 0) {
+                // 时间已经用完，剩下的组不再通知
+                for (int i = start; i < observers.length; i++) {
+                    skipped++;
+                    failureHandler.failed(observers[i], event, new TimeoutException("通知已经超时，没有提交"));
+                }
+                break;
+            }
+            int priority = observers[start].priority();
+            int end = start;
+            while (end < observers.length && observers[end].priority() == priority) {
+                Observer observer = observers[end];
+                if (busy.add(observer)) {
+                    try {
+                        tasks[end] = CompletableFuture.runAsync(() -> {
+                            try {
+                                observer.update(event);
+                            } finally {
+                                busy.remove(observer);
+                            }
+                        }, pool);
+                    } catch (RejectedExecutionException e) {
+                        // 线程池已经关闭
+                        busy.remove(observer);
+                        failed++;
+                        failureHandler.failed(observer, event, e);
+                    }
+                } else {
+                    skipped++;
+                    failureHandler.failed(observer, event, new RejectedExecutionException("上一次通知还没有处理完"));
+                }
+                end++;
+            }
+            for (int i = start; i < end; i++) {
+                if (tasks[i] == null) {
+                    continue;
+                }
+                try {
+                    tasks[i].get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    delivered++;
+                } catch (ExecutionException e) {
+                    failed++;
+                    failureHandler.failed(observers[i], event, e.getCause());
+                } catch (TimeoutException e) {
+                    timedOut++;
+                    failureHandler.failed(observers[i], event, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new DispatchResult(delivered, failed, timedOut + countPending(tasks, i, observers.length), skipped);
+                }
+            }
+            start = end;
+        }
+        return new DispatchResult(delivered, failed, timedOut, skipped);
+    }
+
+    private static int countPending(CompletableFuture<?>[] tasks, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (tasks[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,31 +1,37 @@
 package com.xiaoxu.principle.observer;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.concurrent.Executor;
 
 public class Weather implements Subject {
-    // 温度 风力
-    private int temperature, windPower;
-    // 天气建议
-    private String advice;
+    // 当前的天气，包括温度、风力和天气建议
+    private volatile WeatherEvent current = new WeatherEvent(0, 0, null, 0, 0);
+    private long sequence;
 
     @Override
     public String toString() {
-        return "Weather{" +
-                "temperature=" + temperature +
-                ", windPower=" + windPower +
-                ", advice='" + advice + '\'' +
-                '}';
+        return current.toString();
     }
 
-    private List<Observer> observers = new LinkedList<>();
+    private final ObserverRegistry observers = new ObserverRegistry();
+    private volatile FailureHandler failureHandler = FailureHandler.PRINT;
+    // 为null时在调用的线程中依次通知
+    private volatile ParallelDispatcher dispatcher;
+    // 最近一次通知的结果
+    private volatile DispatchResult lastResult;
 
     @Override
     public void registerObserver(Observer observer) {
         observers.add(observer);
     }
 
+    // 观察者在executor中异步接收通知，返回的AsyncObserver可以查看队列情况，也用它来remove；处理失败交给当前的FailureHandler
+    public AsyncObserver registerAsync(Observer observer, Executor executor, int capacity, OverflowPolicy policy) {
+        AsyncObserver async = new AsyncObserver(observer, executor, capacity, policy,
+                (failed, event, cause) -> failureHandler.failed(failed, event, cause));
+        registerObserver(async);
+        return async;
+    }
+
     @Override
     public void remove(Observer observer) {
         observers.remove(observer);
@@ -34,14 +40,65 @@ public class Weather implements Subject {
     @Override
     public void notifyObservers() {
         System.out.println("开始通知所有的观察者更新天气情况：");
-        observers.forEach(it -> it.update(toString()));
+        dispatch(current);
         System.out.println();
     }
 
     public void changeData(int temperature, int windPower, String advice) {
-        this.temperature = temperature;
-        this.windPower = temperature;
-        this.advice = advice;
+        update(temperature, windPower, advice);
         notifyObservers();
     }
+
+    // 和changeData一样更新并通知，但不在控制台输出，返回这一次通知的结果
+    public DispatchResult publish(int temperature, int windPower, String advice) {
+        return dispatch(update(temperature, windPower, advice));
+    }
+
+    public void setFailureHandler(FailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    // 设置之后在ForkJoinPool中并行通知，失败由dispatcher自己的FailureHandler处理
+    public void setDispatcher(ParallelDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public WeatherEvent getCurrent() {
+        return current;
+    }
+
+    // changeData和notifyObservers没有返回值，通知的结果从这里取
+    public DispatchResult getLastResult() {
+        return lastResult;
+    }
+
+    private synchronized WeatherEvent update(int temperature, int windPower, String advice) {
+        WeatherEvent event = new WeatherEvent(temperature, windPower, advice, ++sequence, System.currentTimeMillis());
+        current = event;
+        return event;
+    }
+
+    // 所有观察者收到的是同一个事件对象
+    private DispatchResult dispatch(WeatherEvent event) {
+        ParallelDispatcher dispatcher = this.dispatcher;
+        DispatchResult result;
+        if (dispatcher != null) {
+            result = dispatcher.dispatch(observers.snapshot(), event);
+        } else {
+            // 一个观察者抛出异常不影响后面的观察者
+            int delivered = 0, failed = 0;
+            for (Observer observer : observers.snapshot()) {
+                try {
+                    observer.update(event);
+                    delivered++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    failureHandler.failed(observer, event, e);
+                }
+            }
+            result = new DispatchResult(delivered, failed, 0, 0);
+        }
+        lastResult = result;
+        return result;
+    }
 }
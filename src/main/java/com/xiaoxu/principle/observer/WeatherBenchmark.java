@@ -0,0 +1,81 @@
+package com.xiaoxu.principle.observer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// 每个观察者各自拼接字符串与所有观察者共用一个事件对象的分配对比，用-prof gc查看每次通知分配的字节数
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherBenchmark {
+    @Param({"1", "16", "256"})
+    int observers;
+
+    private Weather typed;
+    private Weather text;
+    private Observer[] legacy;
+    private int temperature;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        typed = new Weather();
+        text = new Weather();
+        legacy = new Observer[observers];
+        for (int i = 0; i < observers; i++) {
+            typed.registerObserver(new Observer() {
+                @Override
+                public void update(String msg) {
+                    blackhole.consume(msg);
+                }
+
+                @Override
+                public void update(WeatherEvent event) {
+                    blackhole.consume(event);
+                }
+            });
+            Observer observer = blackhole::consume;
+            text.registerObserver(observer);
+            legacy[i] = observer;
+        }
+    }
+
+    // 原来的做法：每个观察者都重新拼接一次toString()
+    @Benchmark
+    public void toStringPerObserver() {
+        int temperature = ++this.temperature;
+        for (Observer observer : legacy) {
+            observer.update("Weather{" +
+                    "temperature=" + temperature +
+                    ", windPower=" + 3 +
+                    ", advice='" + "好天气" + '\'' +
+                    '}');
+        }
+    }
+
+    // 只接收字符串的观察者共用事件中缓存的字符串
+    @Benchmark
+    public void stringAdapter() {
+        text.publish(++temperature, 3, "好天气");
+    }
+
+    @Benchmark
+    public void typedEvent() {
+        typed.publish(++temperature, 3, "好天气");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WeatherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,39 @@
+package com.xiaoxu.principle.observer;
+
+/**
+ * 一次天气变化，每次变化只创建一个，所有观察者拿到的是同一个对象
+ * <p>
+ * sequence从1开始递增，timestamp是变化时的毫秒时间戳
+ */
+public class WeatherEvent {
+    public final int temperature;
+    public final int windPower;
+    public final String advice;
+    public final long sequence;
+    public final long timestamp;
+
+    // 只接收字符串的观察者第一次用到时才生成，之后都用同一个
+    private String text;
+
+    public WeatherEvent(int temperature, int windPower, String advice, long sequence, long timestamp) {
+        this.temperature = temperature;
+        this.windPower = windPower;
+        this.advice = advice;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        String text = this.text;
+        if (text == null) {
+            text = "Weather{" +
+                    "temperature=" + temperature +
+                    ", windPower=" + windPower +
+                    ", advice='" + advice + '\'' +
+                    '}';
+            this.text = text;
+        }
+        return text;
+    }
+}